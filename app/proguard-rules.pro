@@ -17,7 +17,8 @@
 #}
 
 # Uncomment this to preserve the line number information for
-# debugging stack traces.
+# debugging stack traces. ALogSite file/line queries also need it in minified builds,
+# otherwise match sites by tag or register them with ALogSite.at(log, tag, file, line).
 #-keepattributes SourceFile,LineNumberTable
 
 # If you keep the line number information, uncomment this to
@@ -25,20 +26,5 @@
 #-renamesourcefileattribute SourceFile
 
 
--assumenosideeffects enum com.landenlabs.all_log.alog.ALog {
-    public void tagMsg(...);
-    public void tagFmt(...);
-    public void msg(...);
-
-    # public static void i(...);
-    # public static void d(...);
-}
-
--assumenosideeffects class com.landenlabs.all_log.alog.ALog {
-    public void tagMsg(...);
-    public void tagFmt(...);
-    public void msg(...);
-
-    # public static void i(...);
-    # public static void d(...);
-}
\ No newline at end of file
+# ALog stripping rules are generated per build type from alogStripBelow in build.gradle,
+# see generate<Variant>ALogStripRules and verify<Variant>ALogStrip.
@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.landenlabs.all_log.alog.ALog;
+import com.landenlabs.all_log.alog.ALogFileWriter;
+import com.landenlabs.all_log.alog.ALogLoadTest;
+
+import java.io.File;
+
+/**
+ * Debug build load test, {@link ALogLoadTest} is only in the debug source set.
+ *
+ * @author Dennis Lang
+ */
+final class LoadTestRunner {
+    static final boolean AVAILABLE = true;
+
+    private LoadTestRunner() {
+    }
+
+    /**
+     * Soak <b>log</b> with 4 threads at full speed for 5 seconds.
+     *
+     * @param loadDir Directory of a dedicated file writer which takes the load at
+     *                <b>log</b>'s level and is verified after the run, or null to load
+     *                <b>log</b> itself. The app's own log file is never written or cleared.
+     * @return Result summary lines.
+     */
+    @WorkerThread
+    static String run(ALog log, @Nullable File loadDir) throws InterruptedException {
+        // A filtered level measures the cost of disabled calls, nothing reaches a file.
+        if (loadDir == null || log == ALog.none || log.level() < ALog.getMinLevel()) {
+            return new ALogLoadTest(log).run().toString();
+        }
+        ALogFileWriter writer = new ALogFileWriter();
+        writer.setDir(loadDir.getAbsolutePath());
+        writer.open("loadtest.txt", 10 * 1024 * 1024);
+        try {
+            ALogLoadTest loadTest = new ALogLoadTest(writer, log.level());
+            loadTest.setWriter(writer);
+            return loadTest.run().toString();
+        } finally {
+            writer.release();
+        }
+    }
+}
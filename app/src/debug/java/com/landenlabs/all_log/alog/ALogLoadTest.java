@@ -0,0 +1,505 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-threaded load generator and soak harness for the logging pipeline.
+ * <p>
+ * Drives N producer threads, at a target rate per thread or full speed, through any
+ * {@link ALog} (including ALog returned by {@link AppLog} channels) or directly into a
+ * {@link ALogOut.LogPrinter}. Reports throughput, enqueue latency percentiles, drops,
+ * bytes written and GC activity. When a {@link ALogFileWriter} is attached, its file is
+ * read back and checked for missing, duplicate and out of order lines per producer thread.
+ * <p>
+ * A run passes when the read back is complete, throughput is at least
+ * {@link #setMinRate(long)} and drops are at most {@link #setMaxDropPercent(double)}.
+ * <p>
+ * Debug builds only. Printer producers and the harness itself make no Android calls,
+ * so it also runs as a plain JVM unit test, see ALogLoadJvmTest.
+ * <p>
+ * With {@link #setChurn(long)} a churn thread repeatedly clears, rotates, closes and reopens
+ * the writer during the run, stressing the writer lifecycle against concurrent logging.
+ * Every line must still be either in the file, dropped and counted (while closed), or
+ * removed by a clear or rotation, which the verification tolerates.
+ * <p>
+ * Blocks for the run duration, call from a worker thread.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   ALogLoadTest test = new ALogLoadTest(ALog.d);
+ *   test.setThreads(8);
+ *   test.setDuration(10 * 1000);
+ *   ALog.i.tagMsg("LoadTest", test.run());
+ *
+ *   // JVM, no Android logger in the path.
+ *   ALogLoadTest test = new ALogLoadTest(writer, ALog.INFO);
+ *   test.setWriter(writer);
+ *   test.setMaxDropPercent(0.1);
+ *   assertTrue(test.run().isOk());
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ALogLoadTest {
+    private static final String TAG = "ALogLoadTest";
+    private static final String MARK = " load ";
+
+    private final ALog mLog;
+    private final ALogOut.LogPrinter mPrinter;
+    private final int mLevel;
+    private int mThreads = 4;
+    private long mRatePerSec;           // Per thread, 0 is full speed.
+    private long mDurationMilli = 5000;
+    private int mMsgLen = 80;
+    private ALogFileWriter mWriter;
+    private long mChurnMilli;           // 0 is no lifecycle churn.
+    private long mMinPerSec;            // All threads, 0 is no throughput threshold.
+    private double mMaxDropPercent = 1;
+
+    /**
+     * Summary of one run.
+     */
+    public static final class Result {
+        public int threads;
+        public boolean enabled;         // False measures cost of disabled log calls.
+        public long sent;
+        public long elapsedNano;
+        public String enqueue;          // Enqueue latency percentiles.
+        public long dropped;
+        public long bytes;
+        public long gcCount = -1;
+        public long gcMilli = -1;
+        // Read back verification, -1 if not verified.
+        public long found = -1;
+        public long missing = -1;
+        public long outOfOrder = -1;
+        public long churnOps;
+        public boolean partial;         // Older lines removed by rotation, clear or churn.
+        public String error;            // Read back failure.
+        // Thresholds.
+        public long minPerSec;
+        public double maxDropPercent = 100;
+
+        public double perSec() {
+            return elapsedNano == 0 ? 0 : sent * 1e9 / elapsedNano;
+        }
+
+        public double dropPercent() {
+            return sent == 0 ? 0 : dropped * 100.0 / sent;
+        }
+
+        /**
+         * Complete when every line sent is either in the file or counted as dropped.
+         */
+        public boolean isComplete() {
+            return found >= 0 && outOfOrder == 0
+                    && (partial ? missing <= dropped : missing == dropped);
+        }
+
+        /**
+         * Passed when complete (if verified), fast enough and dropped few enough lines.
+         */
+        public boolean isOk() {
+            return error == null && (found < 0 || isComplete())
+                    && perSec() >= minPerSec && dropPercent() <= maxDropPercent;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.US, "threads=%d sent=%d %.0f/s dropped=%d (%.1f%%) bytes=%d",
+                    threads, sent, perSec(), dropped, dropPercent(), bytes));
+            if (!enabled) {
+                sb.append(" (logger disabled)");
+            }
+            if (churnOps > 0) {
+                sb.append(" churnOps=").append(churnOps);
+            }
+            if (gcCount >= 0) {
+                sb.append(" gc=").append(gcCount).append(" gcMs=").append(gcMilli);
+            }
+            if (found >= 0) {
+                sb.append(" found=").append(found).append(" missing=").append(missing)
+                        .append(" outOfOrder=").append(outOfOrder);
+            }
+            if (error != null) {
+                sb.append(" error=").append(error);
+            }
+            sb.append(isOk() ? " OK" : " FAILED");
+            if (perSec() < minPerSec) {
+                sb.append(" below ").append(minPerSec).append("/s");
+            }
+            if (dropPercent() > maxDropPercent) {
+                sb.append(String.format(Locale.US, " drops above %.1f%%", maxDropPercent));
+            }
+            if (enqueue != null) {
+                sb.append("\n").append(enqueue);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @param log Logger producers call, ex: ALog.d or AppLog.LOGFILE.d()
+     */
+    public ALogLoadTest(ALog log) {
+        mLog = log;
+        mPrinter = null;
+        mLevel = log.level();
+    }
+
+    /**
+     * @param printer Printer producers call directly, ex: a ALogFileWriter
+     * @param level   Level of every message.
+     */
+    public ALogLoadTest(ALogOut.LogPrinter printer, int level) {
+        mLog = null;
+        mPrinter = printer;
+        mLevel = level;
+    }
+
+    public void setThreads(int threads) {
+        mThreads = threads;
+    }
+
+    /**
+     * @param ratePerSec Messages per second per thread, 0 for full speed.
+     */
+    public void setRate(long ratePerSec) {
+        mRatePerSec = ratePerSec;
+    }
+
+    public void setDuration(long durationMilli) {
+        mDurationMilli = durationMilli;
+    }
+
+    public void setMessageLength(int msgLen) {
+        mMsgLen = msgLen;
+    }
+
+    /**
+     * Writer the logger routes to, used for drop and byte counts and read back verification.
+     * Writer file is cleared at the start of the run (and by churn), so use a dedicated
+     * writer and directory, never {@link ALogFileWriter#Default}.
+     */
+    public void setWriter(ALogFileWriter writer) {
+        if (writer == ALogFileWriter.Default) {
+            throw new IllegalArgumentException("Load test clears its writer, use a dedicated one");
+        }
+        mWriter = writer;
+    }
+
+    /**
+     * Clear, rotate, close and reopen writer every <b>periodMilli</b> during the run,
+     * 0 to disable. Requires {@link #setWriter(ALogFileWriter)}.
+     */
+    public void setChurn(long periodMilli) {
+        mChurnMilli = periodMilli;
+    }
+
+    /**
+     * @param perSec Minimum messages per second, all threads together, for the run to pass.
+     */
+    public void setMinRate(long perSec) {
+        mMinPerSec = perSec;
+    }
+
+    /**
+     * @param percent Maximum percent of sent messages dropped for the run to pass, default 1.
+     */
+    public void setMaxDropPercent(double percent) {
+        mMaxDropPercent = percent;
+    }
+
+    /**
+     * Run load, wait for writer to drain and verify output.
+     */
+    @WorkerThread
+    public Result run() throws InterruptedException {
+        final Result result = new Result();
+        result.threads = mThreads;
+        result.enabled = (mLog == null) || mLog.isEnabled();
+        result.minPerSec = mMinPerSec;
+        result.maxDropPercent = mMaxDropPercent;
+        final ALogHistogram enqueue = new ALogHistogram("enqueue");
+        final long[] sentBy = new long[mThreads];
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] producers = new Thread[mThreads];
+        final String pad = padding(mMsgLen);
+
+        if (mWriter != null) {
+            mWriter.clear();
+        }
+        ALogScheduler.getDefault().flush(1000);
+        final long dropStart = (mWriter != null) ? mWriter.getDropCount() : 0;
+        final long bytesStart = (mWriter != null) ? mWriter.getBytesWritten() : 0;
+        final long[] gcStart = gcStats();
+
+        for (int idx = 0; idx < mThreads; idx++) {
+            final int producer = idx;
+            producers[idx] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    sentBy[producer] = produce(producer, pad, enqueue);
+                }
+            }, TAG + idx);
+            producers[idx].start();
+        }
+
+        final AtomicLong churnOps = new AtomicLong();
+        final AtomicBoolean churnStop = new AtomicBoolean();
+        final Thread churn = (mChurnMilli > 0 && mWriter != null)
+                ? startChurn(start, churnStop, churnOps) : null;
+
+        final long startNano = System.nanoTime();
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        result.elapsedNano = System.nanoTime() - startNano;
+        if (churn != null) {
+            // Not interrupted, an interrupt closes a FileChannel the churn thread is using.
+            churnStop.set(true);
+            churn.join();
+            result.churnOps = churnOps.get();
+            result.partial = true;
+        }
+        result.sent = sum(sentBy);
+        result.enqueue = enqueue.takeSummary();
+
+        ALogScheduler.getDefault().flush(30 * 1000);
+        final long[] gcEnd = gcStats();
+        if (gcStart[0] >= 0 && gcEnd[0] >= 0) {
+            result.gcCount = gcEnd[0] - gcStart[0];
+            result.gcMilli = gcEnd[1] - gcStart[1];
+        }
+        if (mWriter != null) {
+            result.dropped = mWriter.getDropCount() - dropStart;
+            result.bytes = mWriter.getBytesWritten() - bytesStart;
+            if (result.enabled) {
+                verify(mWriter.getFile(), sentBy, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cycle writer through clear, rotate, close + open and getFile until stopped.
+     * Writer is left open.
+     */
+    private Thread startChurn(final CountDownLatch start, final AtomicBoolean stop,
+            final AtomicLong churnOps) {
+        final ALogFileWriter writer = mWriter;
+        final String name = writer.getFile().getName();
+        final long sizeLimit = writer.getFileSizeLimit();
+        Thread churn = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    for (long op = 0; !stop.get(); op++) {
+                        switch ((int) (op % 4)) {
+                            case 0: writer.clear(); break;
+                            case 1: writer.rotate(); break;
+                            case 2: writer.close(); writer.open(name, sizeLimit); break;
+                            case 3: writer.getFile().length(); break;
+                        }
+                        churnOps.incrementAndGet();
+                        Thread.sleep(mChurnMilli);
+                    }
+                } catch (InterruptedException ignore) {
+                    // Done.
+                } finally {
+                    if (!writer.isOpen()) {
+                        writer.open(name, sizeLimit);
+                    }
+                }
+            }
+        }, TAG + "Churn");
+        churn.start();
+        return churn;
+    }
+
+    /**
+     * Producer loop, message carries producer and sequence for verification.
+     *
+     * @return Messages sent.
+     */
+    private long produce(int producer, String pad, ALogHistogram enqueue) {
+        final long endNano = System.nanoTime() + mDurationMilli * 1000_000L;
+        final long periodNano = (mRatePerSec > 0) ? 1000_000_000L / mRatePerSec : 0;
+        final String prefix = MARK + producer + " ";
+        long nextNano = System.nanoTime();
+        long seq = 0;
+        long now;
+        while ((now = System.nanoTime()) < endNano) {
+            if (periodNano > 0) {
+                if (now < nextNano) {
+                    long sleepNano = nextNano - now;
+                    try {
+                        Thread.sleep(sleepNano / 1000_000L, (int) (sleepNano % 1000_000L));
+                    } catch (InterruptedException ex) {
+                        break;
+                    }
+                }
+                nextNano += periodNano;
+            }
+            long begNano = System.nanoTime();
+            if (mPrinter != null) {
+                mPrinter.println(mLevel, TAG, prefix + seq + pad);
+            } else {
+                mLog.tagMsg(TAG, prefix + seq + pad);
+            }
+            enqueue.record(System.nanoTime() - begNano);
+            seq++;
+        }
+        return seq;
+    }
+
+    /**
+     * Read back writer file, count lines found, gaps and sequence reversals per producer.
+     * File rotation during the run archives the oldest lines, gaps before the first
+     * line found are then not counted.
+     */
+    private void verify(File file, long[] sentBy, Result result) {
+        final long[] next = new long[mThreads];
+        final long[] count = new long[mThreads];
+        result.found = result.missing = result.outOfOrder = 0;
+        final boolean rotated = result.partial || file.length() < result.bytes;
+        result.partial = rotated;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int pos = line.indexOf(MARK);
+                if (pos == -1) {
+                    continue;
+                }
+                pos += MARK.length();
+                int sep = line.indexOf(' ', pos);
+                int end = line.indexOf(' ', sep + 1);
+                if (sep == -1) {
+                    continue;
+                }
+                int producer = Integer.parseInt(line.substring(pos, sep));
+                long seq = Long.parseLong(line.substring(sep + 1, end == -1 ? line.length() : end));
+                if (producer >= mThreads) {
+                    continue;
+                }
+                result.found++;
+                if (count[producer] == 0 && rotated) {
+                    next[producer] = seq;
+                }
+                count[producer]++;
+                if (seq < next[producer]) {
+                    result.outOfOrder++;
+                } else {
+                    result.missing += seq - next[producer];
+                    next[producer] = seq + 1;
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            result.error = ex.toString();
+            result.found = -1;
+            return;
+        }
+        // Lines never found at the end of each producer. When partial, a producer
+        // without any line found may have had all its lines removed.
+        for (int producer = 0; producer < mThreads; producer++) {
+            if (count[producer] != 0 || !rotated) {
+                result.missing += sentBy[producer] - next[producer];
+            }
+        }
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static String padding(int msgLen) {
+        StringBuilder sb = new StringBuilder(" ");
+        while (sb.length() < msgLen) {
+            sb.append((char) ('a' + sb.length() % 26));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return GC count and milliseconds since process start, -1 if not available.
+     * Reflective so the harness has no compile time dependency on either runtime,
+     * java.lang.management on a JVM or android.os.Debug on a device.
+     */
+    private static long[] gcStats() {
+        final long[] stats = { -1, -1 };
+        try {
+            Class<?> factory = Class.forName("java.lang.management.ManagementFactory");
+            Class<?> beanClass = Class.forName("java.lang.management.GarbageCollectorMXBean");
+            Method getCount = beanClass.getMethod("getCollectionCount");
+            Method getTime = beanClass.getMethod("getCollectionTime");
+            long count = 0;
+            long milli = 0;
+            for (Object bean : (List<?>) factory.getMethod("getGarbageCollectorMXBeans").invoke(null)) {
+                count += Math.max(0, (Long) getCount.invoke(bean));
+                milli += Math.max(0, (Long) getTime.invoke(bean));
+            }
+            stats[0] = count;
+            stats[1] = milli;
+            return stats;
+        } catch (Exception ignore) {
+            // Not a JVM.
+        }
+        try {
+            Method stat = Class.forName("android.os.Debug").getMethod("getRuntimeStat", String.class);
+            stats[0] = Long.parseLong((String) stat.invoke(null, "art.gc.gc-count"));
+            stats[1] = Long.parseLong((String) stat.invoke(null, "art.gc.gc-time"));
+        } catch (Exception ignore) {
+            stats[0] = stats[1] = -1;
+        }
+        return stats;
+    }
+}
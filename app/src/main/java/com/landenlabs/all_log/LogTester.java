@@ -9,16 +9,21 @@ public class LogTester {
     private static final String TAG = "LogTester";
 
     public static void test1() {
-        ALog.d.tagMsg(TAG, "test1 tagMsg debug");
-        ALog.i.tagMsg(TAG, "test1 tagMsg info");
+        // Levels below WARN are guarded, their gates are stripped in release builds.
+        if (ALog.isDebug()) ALog.d.tagMsg(TAG, "test1 tagMsg debug");
+        if (ALog.isInfo()) ALog.i.tagMsg(TAG, "test1 tagMsg info");
         ALog.w.tagMsg(TAG, "test1 tagMsg warn");
         ALog.e.tagMsg(TAG, "test1 tagMsg error");
 
-        ALog.d.tagFmt(TAG, "test1 tagFmt debug");
-        ALog.i.tagFmt(TAG, "test1 tagFmt info");
+        if (ALog.isDebug()) ALog.d.tagFmt(TAG, "test1 tagFmt debug");
+        if (ALog.isInfo()) ALog.i.tagFmt(TAG, "test1 tagFmt info");
         ALog.w.tagFmt(TAG, "test1 tagFmt warn");
         ALog.e.tagFmt(TAG, "test1 tagFmt error");
 
-        ALog.d.self().msg("test1 msg debug");
+        if (ALog.isDebug()) ALog.d.self().msg("test1 msg debug");
+
+        if (ALog.isDebug()) ALog.d.tagLazy(TAG, () -> "test1 tagLazy debug");
+        if (ALog.isInfo()) ALog.i.tagLazy(TAG, "info", level -> "test1 tagLazy " + level);
+        ALog.w.tagLazy(TAG, "tagLazy", "warn", (name, level) -> "test1 " + name + " " + level);
     }
 }
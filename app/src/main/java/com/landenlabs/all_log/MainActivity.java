@@ -31,17 +31,19 @@ import android.util.Log;
 import android.view.View;
 import android.widget.CheckBox;
 import android.widget.EditText;
+import android.widget.ListView;
 import android.widget.RadioButton;
-import android.widget.ScrollView;
 import android.widget.Spinner;
-import android.widget.TextView;
 
 import com.landenlabs.all_log.alog.ALog;
 import com.landenlabs.all_log.alog.ALogFileWriter;
 import com.landenlabs.all_log.alog.AppLog;
+import com.landenlabs.all_log.util.LogCatReader;
 import com.landenlabs.all_log.util.LogUtil;
+import com.landenlabs.all_log.util.LogViewAdapter;
 import com.landenlabs.all_log.util.UncaughtExceptionHandler;
 
+import java.io.File;
 import java.util.concurrent.CountDownLatch;
 
 import static com.landenlabs.all_log.MainActivity.LogTypes.logCat;
@@ -76,9 +78,9 @@ public class MainActivity extends Activity
     private Spinner mLevelSp;
     private EditText mTagTextEt;
 
-    private TextView mLogCatTv;
-    private ScrollView mLogCatSv;
-    AsyncTask<Void, String, Void> mAsyncLogCat;
+    private ListView mLogCatLv;
+    private LogViewAdapter mLogViewer;
+    LogCatReader.Listener mLogCatListener;
     AsyncTask<Void, String, Void> mAsyncLogFile;
 
     private CheckBox mThreadUiCb;
@@ -184,8 +186,8 @@ public class MainActivity extends Activity
         findViewById(R.id.throwRb).setOnClickListener(this);
 
         // Action buttons and log status
-        mLogCatTv = findViewById(R.id.logcatTv);
-        mLogCatSv = findViewById(R.id.status_sv);
+        mLogCatLv = findViewById(R.id.status_lv);
+        mLogViewer = new LogViewAdapter(mLogCatLv, 100000);
 
         mThreadUiCb = findViewById(R.id.thread_ui_cb);
         mThread1Cb = findViewById(R.id.thread_1_cb);
@@ -193,23 +195,30 @@ public class MainActivity extends Activity
 
         findViewById(R.id.do_log_btn).setOnClickListener(this);
         findViewById(R.id.clear_btn).setOnClickListener(this);
+        findViewById(R.id.load_test_btn).setOnClickListener(this);
+        findViewById(R.id.load_test_btn).setVisibility(LoadTestRunner.AVAILABLE ? View.VISIBLE : View.GONE);
         findViewById(R.id.show_status_btn).setOnClickListener(this);
 
         mWorkerThread1.start();
         mWorkerThread2.start();
 
         LogUtil.clearLogCat();
-        mAsyncLogCat = LogUtil.getAsyncLogCat(mLogCatTv, mLogCatSv);
-        mAsyncLogCat.execute();
+        mLogCatListener = LogUtil.watchLogCat(mLogViewer);
 
-        AppLog.LOGFILE.i().tag("TestFile").msg("Startup");
-        mAsyncLogFile = LogUtil.getAsyncReadFile(Default.getFile(), mLogCatTv, mLogCatSv);
+        if (ALog.isInfo()) AppLog.LOGFILE.i().tag("TestFile").msg("Startup");
+        mAsyncLogFile = LogUtil.getAsyncReadFile(Default.getFile(), mLogViewer);
         mAsyncLogFile.execute();
 
         ((RadioButton)findViewById(R.id.logfileRb)).setChecked(true);
         fixedLogTest();
     }
 
+    @Override
+    protected void onDestroy() {
+        LogCatReader.getInstance().removeListener(mLogCatListener);
+        super.onDestroy();
+    }
+
     /**
      * Test Log API, generate various log messages.
      */
@@ -234,26 +243,29 @@ public class MainActivity extends Activity
         boolean showNewLog = ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
         AppLog.setMinLevel(showNewLog ? VERBOSE : NOLOGGING);
 
-        AppLog.LOG.d().msg("new style log message #1");
+        // Gate is stripped with its level in release builds, see alogStripBelow.
+        if (ALog.isDebug()) AppLog.LOG.d().msg("new style log message #1");
         // ... do more stuff
-        AppLog.LOG.d().msg("new style log message #2");
+        if (ALog.isDebug()) AppLog.LOG.d().msg("new style log message #2");
 
 
         // ====== More sample new style logging ====
 
         // First demo Application named logs.
         //
-        AppLog.LOG.i().tag("TestTag").msg("Log fixed test");
-        AppLog.LOG_FRAG.i().self().msg("Frag fixed test");
-        AppLog.LOGFILE.i().tag("LogFile").msg("LogFile fixed Test");
+        if (ALog.isInfo()) {
+            AppLog.LOG.i().tag("TestTag").msg("Log fixed test");
+            AppLog.LOG_FRAG.i().self().msg("Frag fixed test");
+            AppLog.LOGFILE.i().tag("LogFile").msg("LogFile fixed Test");
+        }
 
         // Low level - logging samples.
         //
-        ALog.i.self().msg("#log info message");
-        ALog.d.tag("myTag1").msg("#log debug message");
+        if (ALog.isInfo()) ALog.i.self().msg("#log info message");
+        if (ALog.isDebug()) ALog.d.tag("myTag1").msg("#log debug message");
         ALog.w.tagMsg("myTag2", "#log warning message");
         ALog.e.tag("classTag").fmt("#error FIRST:%s LAST:%s", "first", "last");
-        ALog.i.tag("catTag").cat(" ", "Info", "Log", "a", "new", "msg");
+        if (ALog.isInfo()) ALog.i.tag("catTag").cat(" ", "Info", "Log", "a", "new", "msg");
 
         ALog.w.tag("tag3");
         ALog.w.msg("with tag3, msg#1");
@@ -270,12 +282,15 @@ public class MainActivity extends Activity
     public void onClick(View view) {
         int id = view.getId();
         if (id == R.id.do_log_btn) {
-            mLogCatSv.setVisibility(View.VISIBLE);
+            mLogCatLv.setVisibility(View.VISIBLE);
             sendAndShowLog();
         } else if (id == R.id.clear_btn) {
-            mLogCatTv.setText("");
+            mLogViewer.clear();
+        } else if (id == R.id.load_test_btn) {
+            mLogCatLv.setVisibility(View.VISIBLE);
+            runLoadTest();
         } else if (id == R.id.show_status_btn) {
-            mLogCatSv.setVisibility(mLogCatSv.getVisibility() == View.GONE ? View.VISIBLE : View.GONE);
+            mLogCatLv.setVisibility(mLogCatLv.getVisibility() == View.GONE ? View.VISIBLE : View.GONE);
         } else if (id == R.id.tag_selfRb) {
             mTagSelfRb.setChecked(true);
             mTagTextRb.setChecked(false);
@@ -326,6 +341,29 @@ public class MainActivity extends Activity
     }
 
 
+    /**
+     * Soak selected log target with 4 threads at full speed for 5 seconds,
+     * present results in log viewer. Debug builds only.
+     */
+    private void runLoadTest() {
+        final int minLevel = (int) mMinLevelSp.getSelectedItemId() + Log.VERBOSE;
+        final ALog log = getLogLevel((int) mLevelSp.getSelectedItemId() + Log.VERBOSE);
+        // File load goes to its own writer and directory, the load test clears its file.
+        final File loadDir = mFileLog ? new File(getFilesDir(), "loadtest") : null;
+        mLogViewer.add(Log.INFO, "Load test started");
+        new Thread(() -> {
+            AppLog.setMinLevel(minLevel);
+            try {
+                String[] lines = LoadTestRunner.run(log, loadDir).split("\n");
+                for (String line : lines) {
+                    mLogViewer.add(Log.INFO, line);
+                }
+            } catch (InterruptedException ex) {
+                mLogViewer.add(Log.WARN, "Load test interrupted");
+            }
+        }, "LoadTest").start();
+    }
+
     /**
      * Send log via selected concurrent threads.
      *
@@ -400,13 +438,13 @@ public class MainActivity extends Activity
 
         switch (level) {
             case Log.VERBOSE:
-                log = mAppLog.v();
+                log = ALog.isVerbose() ? mAppLog.v() : ALog.none;
                 break;
             case Log.DEBUG:
-                log = mAppLog.d();
+                log = ALog.isDebug() ? mAppLog.d() : ALog.none;
                 break;
             case Log.INFO:
-                log = mAppLog.i();
+                log = ALog.isInfo() ? mAppLog.i() : ALog.none;
                 break;
             case Log.WARN:
                 log = mAppLog.w();
@@ -23,7 +23,6 @@
 
 package com.landenlabs.all_log.alog;
 
-import android.app.ActivityManager;
 import android.content.Context;
 import android.net.TrafficStats;
 import android.os.Debug;
@@ -31,9 +30,9 @@ import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
-import java.lang.ref.WeakReference;
+import androidx.annotation.Nullable;
 
-import static android.content.Context.ACTIVITY_SERVICE;
+import java.lang.ref.WeakReference;
 
 /**
  * Log wrapper (helper) enumeration class. Built-in joining of object strings or formatting
@@ -52,6 +51,7 @@ import static android.content.Context.ACTIVITY_SERVICE;
  *     <li>tagMsgStack(Object tag, Object... args )</li>
  *     <li>tagFmt(Object tag, String fmt, Object... args)</li>
  *     <li>tagCat(Object tag, String separator, Object... args)</li>
+ *     <li>tagLazy(Object tag, Lazy msg)</li>
  * </ul>
  * <p>
  * Slower methods will automatically generate TAG from stack trace.
@@ -73,6 +73,10 @@ import static android.content.Context.ACTIVITY_SERVICE;
  *    ALog.d.tagMsg(this, "log this message with exception", ex);
  *    ALog.d.tagMsg(this, "Data", badData, " should be", goodData);
  *    ALog.d.tagFmt(TAG, "First:%s Last:%s", firstName, lastName);
+ *
+ *    // Expensive message body only built if level is enabled.
+ *    ALog.d.tagLazy(this, () -> toJson(response));
+ *    ALog.d.tagLazy(TAG, items, Items::summary);  // non-capturing, no lambda allocation
  * </font><font color="#a06000">
  *    // Slower calls will generate TAG from stack trace.
  *    ALog.d.msg("log this message");
@@ -111,8 +115,8 @@ public enum ALog {
     /** Assert log priority level 7 */
     a(ALog.ASSERT),
 
-    /** Disabled log priority level 8 */
-    none(ALog.ASSERT+1),
+    /** Disabled log priority level 8, never prints, returned by filtered AppLog channels. */
+    none(ALog.NOLOGGING),
 
     // Log levels to private log file.
     fv(ALog.VERBOSE, ALogFileWriter.Default),
@@ -135,10 +139,6 @@ public enum ALog {
     public static final int NOLOGGING = Log.ASSERT + 1;
 
 
-    /**
-     * Global  Minimum priority level to log, defaults to WARN.
-     */
-    public static int minLevel = WARN;
     public static final String TAG_PREFIX = "ALOG_";
 
     /**
@@ -150,6 +150,81 @@ public enum ALog {
     private final ALogOut mOut = new ALogOut();
     private static final ThreadLocal<String> THREAD_TAG = new ThreadLocal<>();
 
+    /**
+     * Per-thread cached state used to decorate tags, avoid recomputing main thread test
+     * and thread id suffix on every log call.
+     */
+    private static final class ThreadInfo {
+        final boolean isMain;
+        final String suffix;
+        // Last raw tag and its decorated value, repeated tags from a call site cost one compare.
+        String lastTag;
+        String lastTagStr;
+        // One shot admission set by an AppLog channel, taken by the thread's next log call.
+        ALog admitted;                  // Admitted level, null if none.
+        ALogOut.LogPrinter routeOut;    // Routed output or null for level's default output.
+        int admitMinLevel;              // Global level of the state the channel read.
+
+        ThreadInfo() {
+            Thread thread = Thread.currentThread();
+            Looper mainLooper = Looper.getMainLooper();   // Null in JVM unit tests.
+            isMain = (mainLooper != null && mainLooper.getThread() == thread);
+            suffix = isMain ? "#Tmain" : ("#T" + thread.getId());
+        }
+    }
+
+    private static final ThreadLocal<ThreadInfo> THREAD_INFO = new ThreadLocal<ThreadInfo>() {
+        @Override
+        protected ThreadInfo initialValue() {
+            return new ThreadInfo();
+        }
+    };
+
+    /**
+     * Immutable cache entry of printer ready tag. PrnTag is null if tag too long for printer.
+     */
+    private static final class TagEntry {
+        final String tag;
+        final ALogOut.LogPrinter prn;
+        final String prnTag;
+
+        TagEntry(String tag, ALogOut.LogPrinter prn, String prnTag) {
+            this.tag = tag;
+            this.prn = prn;
+            this.prnTag = prnTag;
+        }
+    }
+
+    /**
+     * Global minimum level and AppLog channel routes, immutable and replaced as a whole with a
+     * single volatile write. A logging call reads it once, so a config reload is seen either
+     * entirely or not at all, never as new routes with the old level.
+     */
+    static final class State {
+        final int minLevel;
+        final AppLog.Route[] routes;    // Indexed by AppLog ordinal, null entry for channel default.
+        @Nullable
+        final ALogConfig config;        // Last applied config or null.
+
+        State(int minLevel, AppLog.Route[] routes, @Nullable ALogConfig config) {
+            this.minLevel = minLevel;
+            this.routes = routes;
+            this.config = config;
+        }
+    }
+
+    // Global minimum priority level to log defaults to WARN. Set at runtime by config reload
+    // and adb while other threads log, see setState().
+    private static volatile State sState = new State(WARN, new AppLog.Route[AppLog.values().length], null);
+
+    // Set once any AppLog channel admits a call, avoids thread local lookup when unused.
+    private static volatile boolean sAdmitted;
+
+    // Bounded direct mapped cache of printer ready tags, keyed by raw tag and printer.
+    // Entries are immutable so racing readers and writers only cost an extra miss.
+    private static final int TAG_CACHE_SIZE = 256;  // Power of 2
+    private static final TagEntry[] TAG_CACHE = new TagEntry[TAG_CACHE_SIZE];
+
     // Helper to make Log tag from stack, provide class and line number.
     private static final String NAME = ALog.class.getCanonicalName();
 
@@ -190,6 +265,44 @@ public enum ALog {
 
     // ---------------------------------------------------------------------------------------------
 
+    /**
+     * Deferred message body, only invoked if the log level is enabled.
+     * <p>
+     * Defined here rather then using java.util.function.Supplier which requires API 24.
+     * <p>
+     * Example:
+     * <br><font color="green">
+     *   ALog.d.tagLazy(TAG, () -> toJson(response));
+     * </font>
+     */
+    public interface Lazy {
+        Object get();
+    }
+
+    /**
+     * Deferred message body with one context argument. Use a non-capturing lambda or method
+     * reference so the call site does not allocate a new lambda instance on every call.
+     * <p>
+     * Example:
+     * <br><font color="green">
+     *   ALog.d.tagLazy(TAG, items, list -> "items=" + list.size());
+     * </font>
+     */
+    public interface Lazy1<A> {
+        Object get(A arg1);
+    }
+
+    /**
+     * Deferred message body with two context arguments.
+     *
+     * @see Lazy1
+     */
+    public interface Lazy2<A, B> {
+        Object get(A arg1, B arg2);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+
     ALog(int level) {
         mLevel = level;
     }
@@ -226,6 +339,95 @@ public enum ALog {
         return this;
     }
 
+    /**
+     * @return Log priority level of this instance (2=V, 3=D, 4=I, 5=W 6=E 7=A)
+     */
+    public int level() {
+        return mLevel;
+    }
+
+    /**
+     * Admit the next log call of the calling thread, used by AppLog channels which already
+     * checked this level against <b>minLevel</b> of the {@link State} they read. The call
+     * prints to <b>logPrn</b> and checks <b>minLevel</b>, it does not read the global state
+     * again. Like {@link #tag(String)} the setting is per thread. Every logging call takes
+     * (clears) it on entry, see {@link #enter()}, so a call which does not print, or throws
+     * while building its message, can not leak it into the thread's next log call.
+     *
+     * @param logPrn Routed output target, null for this level's default output.
+     */
+    ALog admitNext(@Nullable ALogOut.LogPrinter logPrn, int minLevel) {
+        sAdmitted = true;
+        ThreadInfo info = THREAD_INFO.get();
+        info.admitted = this;
+        info.routeOut = logPrn;
+        info.admitMinLevel = minLevel;
+        return this;
+    }
+
+    /**
+     * Entry of every logging call, takes the one shot admission set by {@link #admitNext}
+     * and checks the level, reading the global state only if this call was not admitted.
+     *
+     * @return Routed output target or this level's default output, null if the call
+     * must not print.
+     */
+    @Nullable
+    ALogOut.LogPrinter enter() {
+        ALogOut.LogPrinter prn = mOut.outPrn;
+        if (sAdmitted) {
+            ThreadInfo info = THREAD_INFO.get();
+            if (info.admitted != null) {
+                final boolean admitted = (info.admitted == this);
+                final ALogOut.LogPrinter routeOut = info.routeOut;
+                info.admitted = null;
+                info.routeOut = null;
+                if (admitted) {
+                    if (routeOut != null) {
+                        prn = routeOut;
+                    }
+                    return (isLoggable(mLevel, info.admitMinLevel) && prn.accepts(mLevel)) ? prn : null;
+                }
+            }
+        }
+        return (isLoggable(mLevel, sState.minLevel) && prn.accepts(mLevel)) ? prn : null;
+    }
+
+    /**
+     * @return Global minimum priority level to log, defaults to WARN.
+     */
+    public static int getMinLevel() {
+        return sState.minLevel;
+    }
+
+    /**
+     * Set global minimum priority level to log, {@link #NOLOGGING} to disable all logging.
+     * Replaces assigning the removed public <i>ALog.minLevel</i> field.
+     */
+    public static void setMinLevel(int level) {
+        synchronized (State.class) {
+            State state = sState;
+            sState = new State(level, state.routes, state.config);
+        }
+    }
+
+    /**
+     * @return Current global level and channel routes, read once per logging call.
+     */
+    static State state() {
+        return sState;
+    }
+
+    /**
+     * Publish new global level and channel routes. Callers which derive the new state from
+     * the current one hold the State.class lock so concurrent updates are not lost.
+     */
+    static void setState(State state) {
+        synchronized (State.class) {
+            sState = state;
+        }
+    }
+
     // =============================================================================================
     // Common API for logging messages.
     // =============================================================================================
@@ -245,8 +447,9 @@ public enum ALog {
      * @param msgStr Message to print to log output target.
      */
     public void tagMsg(Object tagObj, String msgStr) {
-        if (mLevel >= minLevel) {
-            println(tagStr(tagObj), msgStr);
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), msgStr);
         }
     }
 
@@ -257,9 +460,55 @@ public enum ALog {
      * @param args    If valid level, print all args.
      */
     public void tagMsg(Object tagObj, Object... args) {
-        if (mLevel >= minLevel) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
             String msgStr = join("", 0, args, null);
-            println(tagStr(tagObj), msgStr);
+            print(prn, tagStr(tagObj), msgStr);
+        }
+    }
+
+    /**
+     * If valid log level, invoke <b>msg</b> and print tag and its result.
+     * <p>
+     * Zero cost (no message building) when level is disabled, avoids wrapping calls in
+     * <i>if (ALog.isDebug())</i> style guards.
+     *
+     * @param tagObj Present as tag
+     * @param msg    Deferred message body, only called if valid level.
+     */
+    public void tagLazy(Object tagObj, Lazy msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), String.valueOf(msg.get()));
+        }
+    }
+
+    /**
+     * If valid log level, invoke <b>msg</b> with <b>arg1</b> and print tag and its result.
+     *
+     * @param tagObj Present as tag
+     * @param arg1   Context argument passed to msg.
+     * @param msg    Deferred message body, only called if valid level.
+     */
+    public <A> void tagLazy(Object tagObj, A arg1, Lazy1<A> msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), String.valueOf(msg.get(arg1)));
+        }
+    }
+
+    /**
+     * If valid log level, invoke <b>msg</b> with <b>arg1, arg2</b> and print tag and its result.
+     *
+     * @param tagObj Present as tag
+     * @param arg1   First context argument passed to msg.
+     * @param arg2   Second context argument passed to msg.
+     * @param msg    Deferred message body, only called if valid level.
+     */
+    public <A, B> void tagLazy(Object tagObj, A arg1, B arg2, Lazy2<A, B> msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), String.valueOf(msg.get(arg1, arg2)));
         }
     }
 
@@ -271,8 +520,9 @@ public enum ALog {
      * @param tr Trowable stack trace added to output target.
      */
     public void tagMsg(String tagObj, String msgStr, Throwable tr) {
-        if (mLevel >= minLevel) {
-            println(tagStr(tagObj), msgStr + "\n" + Log.getStackTraceString(tr));
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), msgStr, tr);
         }
     }
 
@@ -283,9 +533,10 @@ public enum ALog {
      * @param args    If valid level, print all args.
      */
     public void tagMsgStack(Object tagObj, Object... args) {
-        if (mLevel >= minLevel) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
             String msgStr = join("", 0, args, null);
-            println(tagStr(tagObj), msgStr + " -stack- " + getMsgStack(null));
+            print(prn, tagStr(tagObj), msgStr + " -stack-", new Exception());
         }
     }
 
@@ -303,16 +554,143 @@ public enum ALog {
      * @param args Optional arguments passed to String.format(fmt, ....)
      */
     public void tagFmt(Object tagObj, String fmt, Object... args) {
-        if (mLevel >= minLevel) {
-            println(tagStr(tagObj), String.format(fmt, args));
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, tagStr(tagObj), String.format(fmt, args));
         }
     }
 
+    /**
+     * Start timing a section of code, elapsed time is recorded into a per-name histogram
+     * and only summaries are logged, see {@link ALogSpan}.
+     * <p>
+     * Example:
+     * <br><font color="green">
+     *   try (ALogSpan span = AppLog.LOG_NETWORK.d().span("fetch")) { ... }
+     * </font>
+     *
+     * @return Running span, or shared no-op span if level is disabled.
+     */
+    public ALogSpan span(String name) {
+        if (enter() != null) {
+            return ALogSpan.begin(name);
+        }
+        return ALogSpan.NONE;
+    }
+
+    /**
+     * @return True if this level is at or above the global minimum level.
+     */
+    public boolean isEnabled() {
+        return enter() != null;
+    }
+
+    // ==== Per level gates and shortcuts, strippable at build time.
+    // A build type with alogStripBelow (app/build.gradle) gets R8 rules which assume gates
+    // below that level return false and shortcuts below it have no side effects, so the
+    // guarded block or the call, including its argument building code, is removed.
+
+    /**
+     * @return True if <b>level</b> is at or above the global minimum level and below
+     * {@link #NOLOGGING}, so {@link #none} never prints. Every instance level check goes
+     * through the per level gates, so a stripped level also disables ALog.d.tagMsg(...)
+     * and AppLog.X.d() style calls. Their argument building code remains, guard it with
+     * a gate to have it removed too.
+     */
+    static boolean isLoggable(int level) {
+        return isLoggable(level, sState.minLevel);
+    }
+
+    /**
+     * Same as {@link #isLoggable(int)} with global level <b>minLevel</b> already read.
+     */
+    static boolean isLoggable(int level, int minLevel) {
+        switch (level) {
+            case VERBOSE: return isVerbose(minLevel);
+            case DEBUG:   return isDebug(minLevel);
+            case INFO:    return isInfo(minLevel);
+            case WARN:    return isWarn(minLevel);
+            case ERROR:   return isError(minLevel);
+            default:      return level >= minLevel && level < NOLOGGING;
+        }
+    }
+
+    /**
+     * @return True if verbose level enabled. Guard expensive arguments with it:
+     * <br><font color="green">
+     *   if (ALog.isVerbose()) ALog.v.tagMsg(TAG, dump(state));
+     * </font>
+     */
+    public static boolean isVerbose() {
+        return isVerbose(sState.minLevel);
+    }
+
+    public static boolean isDebug() {
+        return isDebug(sState.minLevel);
+    }
+
+    public static boolean isInfo() {
+        return isInfo(sState.minLevel);
+    }
+
+    public static boolean isWarn() {
+        return isWarn(sState.minLevel);
+    }
+
+    public static boolean isError() {
+        return isError(sState.minLevel);
+    }
+
+    // Gates with the global level already read, stripped together with the gates above.
+
+    static boolean isVerbose(int minLevel) {
+        return VERBOSE >= minLevel;
+    }
+
+    static boolean isDebug(int minLevel) {
+        return DEBUG >= minLevel;
+    }
+
+    static boolean isInfo(int minLevel) {
+        return INFO >= minLevel;
+    }
+
+    static boolean isWarn(int minLevel) {
+        return WARN >= minLevel;
+    }
+
+    static boolean isError(int minLevel) {
+        return ERROR >= minLevel;
+    }
+
+    /**
+     * Same as <i>ALog.v.tagMsg(tagObj, args)</i>, call and argument code removed when verbose is stripped.
+     */
+    public static void v(Object tagObj, Object... args) {
+        v.tagMsg(tagObj, args);
+    }
+
+    public static void d(Object tagObj, Object... args) {
+        d.tagMsg(tagObj, args);
+    }
+
+    public static void i(Object tagObj, Object... args) {
+        i.tagMsg(tagObj, args);
+    }
+
+    public static void w(Object tagObj, Object... args) {
+        w.tagMsg(tagObj, args);
+    }
+
+    public static void e(Object tagObj, Object... args) {
+        e.tagMsg(tagObj, args);
+    }
+
     /**
      * Helper to format objects into strings.
      */
     public String toString(Object obj) {
-        if (mLevel >= minLevel) {
+        if (enter() != null) {
             if (obj instanceof Throwable) {
                 Throwable tr = (Throwable)obj;
                 return "Exception Msg=" + tr.getLocalizedMessage()
@@ -338,7 +716,7 @@ public enum ALog {
      * @see #self()
      */
     public ALog tag(String tagStr) {
-        if (mLevel >= minLevel) {
+        if (isLoggable(mLevel)) {
             THREAD_TAG.set(tagStr);
         }
         return this;
@@ -352,21 +730,25 @@ public enum ALog {
      * @see #self()
      */
     public ALog tag(Object obj) {
-        if (mLevel >= minLevel) {
+        if (isLoggable(mLevel)) {
             THREAD_TAG.set(tagStr(obj));
         }
         return this;
     }
 
+    /**
+     * @return Tag id with thread suffix "#Tmain" or "#T&lt;threadId&gt;"
+     */
     public static String tagStr(Object obj) {
-        String str = tagId(obj);
-
-        if (Looper.getMainLooper().getThread() == Thread.currentThread()) {
-            str = str + "#Tmain";
-        } else {
-            str = str + "#T" + Thread.currentThread().getId();
+        ThreadInfo info = THREAD_INFO.get();
+        if (obj instanceof String) {
+            if (obj != info.lastTag) {
+                info.lastTagStr = obj + info.suffix;
+                info.lastTag = (String)obj;
+            }
+            return info.lastTagStr;
         }
-        return str;
+        return tagId(obj) + info.suffix;
     }
 
     public static String tagId(Object obj) {
@@ -392,7 +774,7 @@ public enum ALog {
      * @see #tag(String)
      */
     public ALog self() {
-        if (mLevel >= minLevel) {
+        if (isLoggable(mLevel)) {
             THREAD_TAG.set(null);
         }
         return this;
@@ -408,16 +790,55 @@ public enum ALog {
      * Warning - Slower then tagMsg(this, msg) because Tag generated from stack.
      * </font><p>
      * @param args  Message to print to log output target
-     * @see #minLevel
+     * @see #setMinLevel(int)
      */
     public void msg(Object ... args) {
-        if (mLevel >= minLevel) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
             String msgStr = join("",0,  args, null);
-            println(findTag(), msgStr);
+            print(prn, findTag(), msgStr);
         }
     }
 
 
+    /**
+     * If valid log level, invoke <b>msg</b> and print its result with any previously set tag.
+     * <p><font color="#ff0000">
+     * Warning - Slower then tagLazy(this, msg) because Tag generated from stack.
+     * </font><p>
+     * @param msg Deferred message body, only called if valid level.
+     */
+    public void lazy(Lazy msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, findTag(), String.valueOf(msg.get()));
+        }
+    }
+
+    /**
+     * If valid log level, invoke <b>msg</b> with <b>arg1</b> and print its result.
+     *
+     * @see #tagLazy(Object, Object, Lazy1)
+     */
+    public <A> void lazy(A arg1, Lazy1<A> msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, findTag(), String.valueOf(msg.get(arg1)));
+        }
+    }
+
+    /**
+     * If valid log level, invoke <b>msg</b> with <b>arg1, arg2</b> and print its result.
+     *
+     * @see #tagLazy(Object, Object, Object, Lazy2)
+     */
+    public <A, B> void lazy(A arg1, B arg2, Lazy2<A, B> msg) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, findTag(), String.valueOf(msg.get(arg1, arg2)));
+        }
+    }
+
     /**
      * If valid log level, Print msg with Throwable and any previously set tag.
      * <p><font color="#ff0000">
@@ -427,8 +848,9 @@ public enum ALog {
      * @param tr Throwable stack trace logged.
      */
     public void msg(String msgStr, Throwable tr) {
-        if (mLevel >= minLevel) {
-            cat("\n", msgStr, Log.getStackTraceString(tr));
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, findTag(), msgStr, tr);
         }
     }
 
@@ -446,9 +868,10 @@ public enum ALog {
      * @param args Optional arguments passed to String.format(fmt, ....)
      */
     public void fmt(String fmt, Object... args) {
-        if (mLevel >= minLevel) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
             String msgStr = String.format(fmt, args);
-            println(findTag(), msgStr);
+            print(prn, findTag(), msgStr);
         }
     }
 
@@ -466,9 +889,10 @@ public enum ALog {
      * @param args One or more object to stringize.
      */
     public void cat(String separator, Object... args) {
-        if (mLevel >= minLevel) {
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
             String msgStr = join(separator, 0, args, null);
-            println(findTag(), msgStr);
+            print(prn, findTag(), msgStr);
         }
     }
 
@@ -478,8 +902,9 @@ public enum ALog {
      * @param tr Throwable logged, message and stack.
      */
     public void tr(Throwable tr) {
-        if (mLevel >= minLevel) {
-            cat("\n", tr.getLocalizedMessage(), Log.getStackTraceString(tr));
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            print(prn, findTag(), tr.getLocalizedMessage(), tr);
         }
     }
 
@@ -520,11 +945,15 @@ public enum ALog {
      * Log exception and throw it.
      */
     public static  void throwIt(Object tag, Error ex) throws Error  {
-        ALog.e.tagMsg(tag, getMsgStack(ex));
+        if (e.isEnabled()) {
+            e.println(tagStr(tag), ex.getLocalizedMessage(), ex);
+        }
         throw ex;
     }
     public static  void throwIt(Object tag, Exception ex)  throws Exception {
-        ALog.e.tagMsg(tag, getMsgStack(ex));
+        if (e.isEnabled()) {
+            e.println(tagStr(tag), ex.getLocalizedMessage(), ex);
+        }
         throw ex;
     }
 
@@ -542,27 +971,21 @@ public enum ALog {
     }
 
     /**
-     * Include memory usage with message
+     * Include memory usage with message.
+     * <p>
+     * Only reads cheap counters on the calling thread (no forced GC or process memory query).
+     * For periodic memory trends use {@link ALogSampler}.
+     *
+     * @param context Unused, kept for compatibility.
      */
     public void memory(Object tagObj, Context context,  Object... args) {
-        if (mLevel >= minLevel) {
-            System.gc();
-            ActivityManager activityManager =
-                    (ActivityManager) context.getSystemService(ACTIVITY_SERVICE);
-            Debug.MemoryInfo[] memInfos =
-                    activityManager.getProcessMemoryInfo(new int[]{android.os.Process.myPid()});
-            Debug.MemoryInfo memoryInfo = memInfos[0];
-
-            tagMsg(tagObj,
-                    join("", 0, args, null),
-                    " Memory javaHeap=",
-                    memoryInfo.getMemoryStat("summary.java-heap"),
-                    " nativeHeap=",
-                    memoryInfo.getMemoryStat("summary.native-heap"),
-                    " graphics=",
-                    memoryInfo.getMemoryStat("summary.graphics"),
-                    " NetRcv=", TrafficStats.getUidRxBytes(android.os.Process.myUid())
-            );
+        final ALogOut.LogPrinter prn = enter();
+        if (prn != null) {
+            Runtime runtime = Runtime.getRuntime();
+            print(prn, tagStr(tagObj), join("", 0, args, null)
+                    + " Memory javaHeap=" + (runtime.totalMemory() - runtime.freeMemory()) / 1024
+                    + "kB nativeHeap=" + Debug.getNativeHeapAllocatedSize() / 1024
+                    + "kB NetRcv=" + TrafficStats.getUidRxBytes(android.os.Process.myUid()));
         }
     }
 
@@ -574,28 +997,66 @@ public enum ALog {
      * Print level, tag and message to output target.
      */
     protected void println(String tag, String msg) {
+        println(tag, msg, null);
+    }
+
+    /**
+     * Print level, tag, message and optional Throwable to output target.
+     * Throwable is passed by reference, its stack trace is rendered by the output target.
+     */
+    protected void println(String tag, String msg, Throwable tr) {
+        ALogOut.LogPrinter prn = enter();
+        print((prn != null) ? prn : mOut.outPrn, tag, msg, tr);
+    }
+
+    void print(ALogOut.LogPrinter prn, String tag, String msg) {
+        print(prn, tag, msg, null);
+    }
+
+    /**
+     * Print to <b>prn</b>, taken by the caller with {@link #enter()} on entry.
+     */
+    void print(ALogOut.LogPrinter prn, String tag, String msg, Throwable tr) {
         try {
-            int preLen = TAG_PREFIX.length();
-            int tagLen = tag.length();
-            final int maxTagLen = mOut.outPrn.maxTagLen();
-
-            // As of Nougat (7.0, api 24) the tag length must not exceed 23 characters.
-            // If tag is too long, only show prefix in Tag field and present remainder
-            // in message field.
-            if (preLen + tagLen <= maxTagLen) {
-                mOut.outPrn.println(mLevel, TAG_PREFIX + tag, msg);
+            String prnTag = printerTag(tag, prn);
+            String prnMsg = msg;
+            if (prnTag == null) {
+                prnTag = TAG_PREFIX;
+                prnMsg = tag + ": " + msg;
+            }
+            if (tr == null) {
+                prn.println(mLevel, prnTag, prnMsg);
             } else {
-                mOut.outPrn.println(mLevel, TAG_PREFIX, tag + ": " + msg);
+                prn.println(mLevel, prnTag, prnMsg, tr);
             }
 
             if (contextRef != null && mLevel >= ERROR) {
-                if (Looper.getMainLooper().getThread() == Thread.currentThread()) {
+                if (THREAD_INFO.get().isMain) {
                     Toast.makeText(contextRef.get(), msg, Toast.LENGTH_LONG).show();
                 }
             }
         } catch (IllegalArgumentException ex) {
-            mOut.outPrn.println(mLevel, TAG_PREFIX, ex.getMessage());
+            prn.println(mLevel, TAG_PREFIX, ex.getMessage());
+        }
+    }
+
+    /**
+     * Get cached printer ready tag, TAG_PREFIX + tag.
+     * <p>
+     * As of Nougat (7.0, api 24) the tag length must not exceed 23 characters.
+     * If tag is too long, return null so only prefix is shown in Tag field and remainder
+     * is presented in message field.
+     */
+    private static String printerTag(String tag, ALogOut.LogPrinter prn) {
+        final int idx = tag.hashCode() & (TAG_CACHE_SIZE - 1);
+        TagEntry entry = TAG_CACHE[idx];
+        if (entry == null || entry.prn != prn || !entry.tag.equals(tag)) {
+            String prnTag = (TAG_PREFIX.length() + tag.length() <= prn.maxTagLen())
+                    ? TAG_PREFIX + tag : null;
+            entry = new TagEntry(tag, prn, prnTag);
+            TAG_CACHE[idx] = entry;
         }
+        return entry.prnTag;
     }
 
     /**
@@ -0,0 +1,376 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Immutable logging configuration snapshot, loaded from a properties file and optionally
+ * watched for changes so verbosity can be raised on a device without a rebuild or restart.
+ * <p>
+ * Applying a config swaps the global level and all channel routes at once (see
+ * {@link ALog.State}), logging threads read them with a single volatile load and never
+ * take a lock.
+ * <p>
+ * Example file:
+ * <pre>
+ *   # Global minimum level, VERBOSE, DEBUG, INFO, WARN, ERROR, ASSERT or NONE
+ *   minLevel=DEBUG
+ *
+ *   # Per channel (AppLog name) level, sink and rate limit (messages per second).
+ *   # Sink is sys (logcat), logcat (async batched logcat), none, file (ALogFileWriter.Default)
+ *   # or a file name, written as a per process segment (see ALogFileWriter.segmentName).
+ *   channel.LOG_NETWORK.level=VERBOSE
+ *   channel.LOG_NETWORK.sink=network.log
+ *   channel.LOG_NETWORK.rate=200
+ *   channel.LOGFILE.sink=app.log
+ *   channel.LOGFILE.level=INFO
+ *
+ *   # Per file rotation size (bytes) and row format.
+ *   file.network.log.size=4194304
+ *   file.network.log.format=%s/%c %s - %s
+ *
+ *   # Async logcat sink level filter and queue overflow (DROP_NEWEST, DROP_OLDEST, CALLER_RUNS).
+ *   logcat.level=INFO
+ *   logcat.overflow=DROP_OLDEST
+ *
+ *   # ALogSite call sites to turn on or off, ';' separated queries. Each load replaces
+ *   # the site rules of the previous load, rules set from adb or code are kept.
+ *   site.enable=file:NetClient.java line:120-140; tag:Db*
+ *   site.disable=
+ * </pre>
+ * Example:
+ * <br><font color="green">
+ *   ALogConfig.watch(context, new File(context.getFilesDir(), "alog.properties"), 5000);
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogConfig {
+    private static final String TAG = "ALogConfig";
+
+    public static final String SINK_SYS = "sys";
+    public static final String SINK_NONE = "none";
+    public static final String SINK_FILE = "file";
+    public static final String SINK_LOGCAT = "logcat";
+    public static final long FILE_SIZE_LIMIT = 1024 * 1024 * 10;
+
+    /**
+     * Channel settings, unset values are -1 or null and leave channel default.
+     */
+    public static final class Channel {
+        public final int level;
+        public final String sink;
+        public final int ratePerSec;
+
+        Channel(int level, String sink, int ratePerSec) {
+            this.level = level;
+            this.sink = sink;
+            this.ratePerSec = ratePerSec;
+        }
+    }
+
+    /**
+     * Private log file settings.
+     */
+    public static final class FileSpec {
+        public final long sizeLimit;
+        public final String format;
+
+        FileSpec(long sizeLimit, String format) {
+            this.sizeLimit = sizeLimit;
+            this.format = format;
+        }
+    }
+
+    /** Global minimum level or -1 to leave unchanged. */
+    public final int minLevel;
+    public final Map<String, Channel> channels;
+    public final Map<String, FileSpec> files;
+    /** Async logcat sink level or -1 to leave unchanged. */
+    public final int logcatLevel;
+    /** Async logcat sink overflow or null to leave unchanged. */
+    @Nullable
+    public final ALogLogcatWriter.Overflow logcatOverflow;
+    /** ALogSite queries to enable, disable, or null for none. */
+    @Nullable
+    public final String siteEnable;
+    @Nullable
+    public final String siteDisable;
+
+    private static final Map<String, ALogFileWriter> sWriters = new HashMap<>();
+    private static final ALogOut.LogPrinter SYS_OUT = new ALogOut.SysLog();
+    private static ScheduledFuture<?> sWatch;
+
+    private ALogConfig(int minLevel, Map<String, Channel> channels, Map<String, FileSpec> files,
+            int logcatLevel, @Nullable ALogLogcatWriter.Overflow logcatOverflow,
+            @Nullable String siteEnable, @Nullable String siteDisable) {
+        this.minLevel = minLevel;
+        this.channels = Collections.unmodifiableMap(channels);
+        this.files = Collections.unmodifiableMap(files);
+        this.logcatLevel = logcatLevel;
+        this.logcatOverflow = logcatOverflow;
+        this.siteEnable = siteEnable;
+        this.siteDisable = siteDisable;
+    }
+
+    /**
+     * @return Last applied config or null.
+     */
+    @Nullable
+    public static ALogConfig getCurrent() {
+        return ALog.state().config;
+    }
+
+    public static ALogConfig load(File file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        }
+        return parse(props);
+    }
+
+    public static ALogConfig parse(Properties props) {
+        int minLevel = parseLevel(props.getProperty("minLevel"));
+        Map<String, Channel> channels = new HashMap<>();
+        Map<String, FileSpec> files = new HashMap<>();
+
+        for (AppLog appLog : AppLog.values()) {
+            String prefix = "channel." + appLog.name() + ".";
+            int level = parseLevel(props.getProperty(prefix + "level"));
+            String sink = props.getProperty(prefix + "sink");
+            int rate = (int) parseLong(props.getProperty(prefix + "rate"), 0);
+            if (level != -1 || sink != null || rate > 0) {
+                channels.put(appLog.name(), new Channel(level, (sink == null) ? null : sink.trim(), rate));
+                if (sink != null && isFileName(sink.trim())) {
+                    files.put(sink.trim(), new FileSpec(FILE_SIZE_LIMIT, null));
+                }
+            }
+        }
+
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("file.") && key.endsWith(".size")) {
+                String name = key.substring(5, key.length() - 5);
+                String format = props.getProperty("file." + name + ".format");
+                files.put(name, new FileSpec(parseLong(props.getProperty(key), FILE_SIZE_LIMIT), format));
+            } else if (key.startsWith("file.") && key.endsWith(".format")) {
+                String name = key.substring(5, key.length() - 7);
+                if (!props.containsKey("file." + name + ".size")) {
+                    files.put(name, new FileSpec(FILE_SIZE_LIMIT, props.getProperty(key)));
+                }
+            }
+        }
+        ALogLogcatWriter.Overflow overflow = null;
+        String overflowStr = props.getProperty("logcat.overflow");
+        if (overflowStr != null) {
+            try {
+                overflow = ALogLogcatWriter.Overflow.valueOf(overflowStr.trim().toUpperCase(Locale.US));
+            } catch (IllegalArgumentException ex) {
+                ALog.w.tagMsg(TAG, "Unknown logcat.overflow ", overflowStr);
+            }
+        }
+        return new ALogConfig(minLevel, channels, files,
+                parseLevel(props.getProperty("logcat.level")), overflow,
+                props.getProperty("site.enable"), props.getProperty("site.disable"));
+    }
+
+    /**
+     * Apply config, open any new log files and swap global level and all channel routes
+     * at once with a single {@link ALog.State} write.
+     * Channels not in config return to their default output. Log files the previous config
+     * opened and this one no longer uses are released (see {@link ALogFileWriter#release()})
+     * after the swap, a call still holding an old route while the swap happens is dropped.
+     */
+    public static synchronized void apply(Context context, ALogConfig config) {
+        for (Map.Entry<String, FileSpec> entry : config.files.entrySet()) {
+            FileSpec spec = entry.getValue();
+            ALogFileWriter writer = getWriter(context, entry.getKey(), spec.sizeLimit);
+            if (writer != null) {
+                writer.setFileSizeLimit(spec.sizeLimit);
+                if (spec.format != null) {
+                    writer.setFormat(spec.format);
+                }
+            }
+        }
+
+        AppLog[] appLogs = AppLog.values();
+        AppLog.Route[] routes = new AppLog.Route[appLogs.length];
+        for (AppLog appLog : appLogs) {
+            Channel channel = config.channels.get(appLog.name());
+            if (channel != null) {
+                ALogOut.LogPrinter out = null;
+                int level = (channel.level == -1) ? ALog.VERBOSE : channel.level;
+                if (SINK_SYS.equals(channel.sink)) {
+                    out = SYS_OUT;
+                } else if (SINK_FILE.equals(channel.sink)) {
+                    out = ALogFileWriter.Default;
+                } else if (SINK_LOGCAT.equals(channel.sink)) {
+                    out = ALogLogcatWriter.Default;
+                } else if (SINK_NONE.equals(channel.sink)) {
+                    level = ALog.NOLOGGING;
+                } else if (channel.sink != null) {
+                    out = getWriter(context, channel.sink, FILE_SIZE_LIMIT);
+                }
+                routes[appLog.ordinal()] = new AppLog.Route(out, level, channel.ratePerSec);
+            }
+        }
+
+        // Sink and site settings first, each applied with one write, so they are in place
+        // when the new routes and level become visible.
+        ALogLogcatWriter.Default.configure(config.logcatLevel, config.logcatOverflow);
+        ALogSite.setRules(TAG, splitQueries(config.siteDisable), splitQueries(config.siteEnable));
+
+        synchronized (ALog.State.class) {
+            int minLevel = (config.minLevel != -1) ? config.minLevel : ALog.getMinLevel();
+            ALog.setState(new ALog.State(minLevel, routes, config));
+        }
+
+        Iterator<Map.Entry<String, ALogFileWriter>> it = sWriters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ALogFileWriter> entry = it.next();
+            if (!config.files.containsKey(entry.getKey())) {
+                entry.getValue().release();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Load and apply config file now and again whenever it changes.
+     *
+     * @param pollMilli Interval to check file modification time.
+     */
+    public static synchronized void watch(Context context, final File file, long pollMilli) {
+        stopWatch();
+        final Context appContext = context.getApplicationContext();
+        final long[] lastModified = { 0 };
+        Runnable check = new Runnable() {
+            @Override
+            public void run() {
+                long modified = file.lastModified();
+                if (modified != 0 && modified != lastModified[0]) {
+                    lastModified[0] = modified;
+                    try {
+                        apply(appContext, load(file));
+                        if (ALog.isInfo()) {
+                            ALog.i.tagMsg(TAG, "Applied ", file);
+                        }
+                    } catch (Exception ex) {
+                        ALog.w.tagMsg(TAG, "Failed to load ", file, " ", ex);
+                    }
+                }
+            }
+        };
+        check.run();
+        sWatch = ALogScheduler.schedulePeriodic(check, pollMilli);
+    }
+
+    public static synchronized void stopWatch() {
+        if (sWatch != null) {
+            sWatch.cancel(false);
+            sWatch = null;
+        }
+    }
+
+    private static List<String> splitQueries(@Nullable String queries) {
+        ArrayList<String> list = new ArrayList<>();
+        if (queries != null) {
+            for (String query : queries.split(";")) {
+                if (!query.trim().isEmpty()) {
+                    list.add(query);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return Shared writer of file <b>name</b>, created on first use as this process's
+     * segment of <b>name</b>, see {@link ALogFileWriter#create}.
+     */
+    @Nullable
+    private static ALogFileWriter getWriter(Context context, String name, long sizeLimit) {
+        if (SINK_FILE.equals(name)) {
+            return ALogFileWriter.Default;
+        }
+        ALogFileWriter writer = sWriters.get(name);
+        if (writer == null) {
+            writer = ALogFileWriter.create(context, name, sizeLimit);
+            if (writer != null) {
+                sWriters.put(name, writer);
+            }
+        }
+        return writer;
+    }
+
+    private static boolean isFileName(String sink) {
+        return !SINK_SYS.equals(sink) && !SINK_NONE.equals(sink) && !SINK_FILE.equals(sink)
+                && !SINK_LOGCAT.equals(sink);
+    }
+
+    /**
+     * @return Level from name (VERBOSE...ASSERT, NONE) or number, -1 if unset or invalid.
+     */
+    static int parseLevel(@Nullable String value) {
+        if (value == null) {
+            return -1;
+        }
+        switch (value.trim().toUpperCase(Locale.US)) {
+            case "VERBOSE": case "V": return ALog.VERBOSE;
+            case "DEBUG":   case "D": return ALog.DEBUG;
+            case "INFO":    case "I": return ALog.INFO;
+            case "WARN":    case "W": return ALog.WARN;
+            case "ERROR":   case "E": return ALog.ERROR;
+            case "ASSERT":  case "A": return ALog.ASSERT;
+            case "NONE":              return ALog.NOLOGGING;
+            default:
+                return (int) parseLong(value, -1);
+        }
+    }
+
+    private static long parseLong(@Nullable String value, long defValue) {
+        try {
+            return (value == null) ? defValue : Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return defValue;
+        }
+    }
+}
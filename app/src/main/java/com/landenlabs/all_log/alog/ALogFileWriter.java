@@ -24,55 +24,239 @@
 package com.landenlabs.all_log.alog;
 
 import android.content.Context;
-import android.os.Looper;
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.PriorityQueue;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPOutputStream;
 
 /**
  * Custom Log output saves to a private log file
+ * <p>
+ * Producers only queue a record, the timestamp formatting and file i/o are done by
+ * an {@link ALogScheduler} on its shared i/o executor. See {@link QueueMode} to select
+ * how producers queue records.
+ * <p>
+ * The main process writes the plain file name (ex: filelog.txt), every other process its
+ * own segment named with process name and pid (see {@link #segmentName(Context, String)}),
+ * so a main and a ":remote" process never share or rotate the same file. Rotation and pruning of old segments hold a lock file in the
+ * log directory. {@link ALogMergeReader} reads all segments as one ordered stream.
  *
  * @author Dennis Lang
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
-public class ALogFileWriter implements ALogOut.LogPrinter {
+public class ALogFileWriter implements ALogOut.LogPrinter, ALogScheduler.Sink {
     private static final String TAG = "ALogFileWriter";
-    private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+    // Rows start "yyyy-MM-dd HH:mm:ss.SSS", SECONDS_FORMAT without the ".SSS" milliseconds.
+    private static final String SECONDS_FORMAT = "yyyy-MM-dd HH:mm:ss";
     private static final char[] LEVELS = { '0', '1', 'V','D', 'I', 'W', 'E', 'A' };
-    private static SimpleDateFormat dateFmt;
+    private static final int QUEUE_CAPACITY = 20;
+    private static final long FILE_SIZE_LIMIT = 1024 * 1024 * 10;
 
-    private String mMsgFmt = "%s/%c %s - %s";  // timestamp, level, tag, message
+    // Each writer drains on its own scheduler task, possibly concurrent with other writers.
+    // Formats whole seconds, '.' and milliseconds are appended by getTimeStamp.
+    private final SimpleDateFormat mDateFmt = new SimpleDateFormat(SECONDS_FORMAT, Locale.getDefault());
+    private static final String DEFAULT_FMT = "%s/%c %s - %s";
+    private volatile String mMsgFmt = DEFAULT_FMT;  // timestamp, level, tag, message
     private final String mFilename = "filelog.txt";
     private String mLogDir;
+    private volatile int mKeepRuns = 1;
+
+    // Directory lock file shared by all processes. FileLock is held per process, so
+    // writers in this process also serialize on DIR_LOCK before locking the file.
+    static final String LOCK_NAME = ".alog.lock";
+    static final Object DIR_LOCK = new Object();
 
     private String mLogFileName = mFilename;
-    private long mFileSizeLimit;           // bytes
-    private File mLogFile;
-    private BufferedWriter mBufferedWriter;
-    private Thread mWriterThread;
+    private volatile long mFileSizeLimit;  // bytes
+    private volatile File mLogFile;
+    private FileChannel mChannel;
+    private long mFileSize;                // bytes in current file, avoids stat per write.
+    private volatile long mBytesWritten;   // bytes written since created, all files. Drain only writes.
+    private final AtomicLong mDropCount = new AtomicLong();
+
+    /**
+     * Writer lifecycle, changed only while holding both mDrainLock and this.
+     */
+    public enum State {
+        /** Not opened yet, closed or deleted. Records reaching the writer are dropped and counted. */
+        CLOSED,
+        /** Preparing file on a background thread, records are held in the pre-open buffer. */
+        OPENING,
+        /** File open, rows written. */
+        OPEN,
+        /** Last open or write failed, each following batch retries the open first. */
+        FAILED
+    }
+
+    private volatile State mState = State.CLOSED;
+    private boolean mDropReported;         // Guarded by this.
+    private static final int PRE_OPEN_CAPACITY = 1024;
+    private final ArrayList<ALogRecord> mPreOpen = new ArrayList<>();  // Guarded by this.
+    private int mOpenGen;                  // Guarded by this, latest openAsync.
+    // Clear requested while opening or by clearAsync, done by the opener or next drain.
+    private volatile boolean mClearPending;
+    // Serializes the single consumer (drain) with open, close, clear, delete and rotate,
+    // so lifecycle changes land between batches. Lock order is mDrainLock then this.
+    private final Object mDrainLock = new Object();
+
+    // Records are UTF-8 encoded straight into reusable direct buffers, written with
+    // one gathering write per batch. Drain only.
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int BUFFER_COUNT = 4;
+    private final ByteBuffer[] mBuffers = new ByteBuffer[BUFFER_COUNT];
+    private int mBufIdx;
+    private final StringBuilder mTimeSb = new StringBuilder();
+    private long mTimeSecond = Long.MIN_VALUE;
+    private String mTimePrefix;
+    private volatile ALogScheduler mScheduler;
+    private volatile ALogScheduler.Task mDrainTask;
+    private final ArrayList<ALogRecord> mBatch = new ArrayList<>();    // Drain only.
+    // Queued records taken off the queues, in global order, waiting for older ring records.
+    private final ArrayList<ALogRecord> mHeld = new ArrayList<>();     // Drain only.
+    private volatile boolean mHeldPending;
+    private final PriorityQueue<ALogRing> mHeads = new PriorityQueue<>(8, HEAD_ORDER); // Drain only.
+
+    // Rings by their oldest pending record.
+    private static final Comparator<ALogRing> HEAD_ORDER = new Comparator<ALogRing>() {
+        @Override
+        public int compare(ALogRing lhs, ALogRing rhs) {
+            return ALogRecord.ORDER.compare(lhs.peek(), rhs.peek());
+        }
+    };
+
+    /**
+     * How producer threads queue records for the writer thread.
+     */
+    public enum QueueMode {
+        /** All producers add to one shared bounded queue. */
+        SHARED,
+        /**
+         * Each producer thread adds to its own single-producer ring, registered lazily on
+         * first use and released after the thread dies. Writer merges all rings by timestamp.
+         * Producers never contend with each other.
+         */
+        PER_THREAD
+    }
+
+    private volatile QueueMode mQueueMode = QueueMode.SHARED;
+    private int mRingCapacity = 256;
+    private final ThreadLocal<ALogRing> mThreadRing = new ThreadLocal<>();
+    private final CopyOnWriteArrayList<ALogRing> mRings = new CopyOnWriteArrayList<>();
+
+    /**
+     * When written rows are forced (fsync) from the page cache to storage.
+     * Forcing is group committed, one force covers every row written before it,
+     * so a burst of errors costs one force and not one per row.
+     */
+    public enum Durability {
+        /** Never force, rows reach storage when the OS flushes its page cache. */
+        NONE,
+        /** Force at most once per period while rows are being written. */
+        PERIODIC,
+        /** Force after any batch containing a row at or above the force level. */
+        LEVEL
+    }
+
+    private volatile Durability mDurability = Durability.NONE;
+    private volatile long mForcePeriodMilli = 1000;
+    private volatile int mForceLevel = ALog.ERROR;
+    private volatile boolean mForceRequested;
+    private ScheduledFuture<?> mForceTimer;
+    private boolean mDirty;                // Drain only, rows written but not forced.
+    private long mLastForceMilli;          // Drain only.
+
+    // Stack traces rendered on writer thread, repeated traces folded to a reference.
+    // Reset whenever a new file starts, so references only point into the same file.
+    private final ALogTrace mTrace = new ALogTrace();
+    private final StringBuilder mTraceSb = new StringBuilder();    // Drain only.
+    private volatile long mTraceSummaryMilli = 60 * 1000;
+    private volatile ScheduledFuture<?> mTraceSummaryTimer;
+    private volatile boolean mTraceSummaryDue;
+
+    private volatile boolean mReleased;    // See release(), never reopened.
 
     public static final ALogFileWriter Default = new ALogFileWriter();
-    private static final ArrayBlockingQueue<String> mWriteQueue = new ArrayBlockingQueue<>(20);
+    private final ArrayBlockingQueue<ALogRecord> mWriteQueue;
+
+    // Priority lane, records at or above mUrgentLevel have their own reserved capacity
+    // and are taken off it first, so a flood of low level records can not push them out.
+    private final ArrayBlockingQueue<ALogRecord> mUrgentQueue;
+    private volatile int mUrgentLevel = ALog.WARN;
+    private final AtomicLong mUrgentDropCount = new AtomicLong();
+
+    // Adaptive load shedding, calls below mShedLevel are rejected by accepts() on entry,
+    // before their message is built, println also drops them for direct callers.
+    // Controller runs on drain, raising the level one step under pressure (queue fill, writer
+    // lag or overflow drops) and lowering it after pressure stays low, see setShedding.
+    private static final int SHED_HIGH_PERCENT = 75;
+    private static final int SHED_LOW_PERCENT = 25;
+    private static final long SHED_LAG_HIGH_MILLI = 500;
+    private static final long SHED_LAG_LOW_MILLI = 100;
+    private static final long SHED_STEP_MILLI = 250;     // Minimum between raising steps.
+    private static final long SHED_RECOVER_MILLI = 2000; // Low pressure needed per lowering step.
+    private volatile boolean mShedding;
+    private volatile int mShedLevel = ALog.VERBOSE;
+    private final AtomicLong mShedCount = new AtomicLong();
+    private final AtomicLong mOverflowCount = new AtomicLong();  // Queue or ring full drops.
+    private long mShedChangeNano;          // Drain only.
+    private long mShedCalmNano;            // Drain only, start of low pressure.
+    private long mShedDropMark;            // Drain only, overflow drops at last check.
+    private long mShedCountMark;           // Drain only, shed count when last degraded.
+    private ScheduledFuture<?> mShedTimer; // Drain only.
+
+    public ALogFileWriter() {
+        this(QUEUE_CAPACITY);
+    }
+
+    /**
+     * Create writer with its own queue, file and rotation policy.
+     *
+     * @param queueCapacity Maximum records pending in shared queue before records are dropped.
+     */
+    public ALogFileWriter(int queueCapacity) {
+        this(queueCapacity, queueCapacity);
+    }
 
+    /**
+     * Create writer with its own queues, file and rotation policy.
+     *
+     * @param queueCapacity  Maximum low priority records pending before they are dropped.
+     * @param urgentCapacity Capacity reserved for records at or above the urgent level,
+     *                       see {@link #setUrgentLevel(int)}.
+     */
+    public ALogFileWriter(int queueCapacity, int urgentCapacity) {
+        mWriteQueue = new ArrayBlockingQueue<>(queueCapacity);
+        mUrgentQueue = new ArrayBlockingQueue<>(urgentCapacity);
+    }
 
     @SuppressWarnings("UnusedReturnValue")
     public static boolean init(Context context) {
         boolean okay = true;
-        dateFmt = new SimpleDateFormat(TIMESTAMP_FORMAT, Locale.getDefault());
 
         try {
-            Default.setDir(context.getFilesDir().getAbsolutePath() + "/logs");
-            Default.open(context);
+            Default.setDir(getDefaultDir(context));
+            Default.openAsync(context);
         } catch (Exception ex) {
             okay = false;
             ALog.e.tagMsg(TAG, ex);
@@ -81,6 +265,38 @@ public class ALogFileWriter implements ALogOut.LogPrinter {
         return okay;
     }
 
+    /**
+     * Create and open an additional log file in default log directory.
+     * Returns immediately, file is prepared on a background thread (see {@link #openAsync}).
+     * Like the default log, a process other than main writes its own segment, see
+     * {@link #segmentName}, so other processes routing to the same name never share or rotate it.
+     * Read all segments with {@link ALogMergeReader#open(File, String)}.
+     * <p>
+     * Example, route network channel to its own file:
+     * <br><font color="green">
+     *   AppLog.LOG_NETWORK.route(ALogFileWriter.create(context, "network.log", 2*1024*1024), ALog.VERBOSE);
+     * </font>
+     *
+     * @param fileSizeLimit Bytes, when exceeded file is archived and a new file started.
+     * @return Opened writer or null if open failed.
+     */
+    @Nullable
+    public static ALogFileWriter create(Context context, String logFileName, long fileSizeLimit) {
+        try {
+            ALogFileWriter writer = new ALogFileWriter();
+            writer.setDir(getDefaultDir(context));
+            writer.openAsync(segmentName(context, logFileName), fileSizeLimit);
+            return writer;
+        } catch (Exception ex) {
+            ALog.e.tagMsg(TAG, ex);
+            return null;
+        }
+    }
+
+    private static String getDefaultDir(Context context) {
+        return context.getFilesDir().getAbsolutePath() + "/logs";
+    }
+
     /**
      *  Set row format for four fields:
      *  <ul>
@@ -100,6 +316,175 @@ public class ALogFileWriter implements ALogOut.LogPrinter {
         mMsgFmt = fmt;
     }
 
+    /**
+     * Set how producers queue records, defaults to {@link QueueMode#SHARED}.
+     * Records already queued by either mode are still written.
+     */
+    public void setQueueMode(QueueMode queueMode) {
+        mQueueMode = queueMode;
+    }
+
+    public QueueMode getQueueMode() {
+        return mQueueMode;
+    }
+
+    /**
+     * Set capacity of per-thread rings created after this call, see {@link QueueMode#PER_THREAD}.
+     */
+    public void setRingCapacity(int capacity) {
+        mRingCapacity = capacity;
+    }
+
+    /**
+     * Set lowest level queued on the priority lane, defaults to {@link ALog#WARN}.
+     * <p>
+     * Priority records use their own reserved queue in either {@link QueueMode}, each drain
+     * takes all of them before any low priority record. Rows are still written in global
+     * timestamp order, so order within each lane is kept.
+     * Under overload low priority records are shed first, a priority record is only
+     * dropped when the priority lane itself is full.
+     * <p>
+     * Example:
+     * <br><font color="green">
+     *     ALogFileWriter.Default.setUrgentLevel(ALog.ERROR);
+     * </font>
+     */
+    public void setUrgentLevel(int level) {
+        mUrgentLevel = level;
+    }
+
+    public int getUrgentLevel() {
+        return mUrgentLevel;
+    }
+
+    /**
+     * Enable adaptive load shedding, disabled by default.
+     * <p>
+     * While the writer falls behind (queue or ring over 75% full, oldest pending record
+     * older than 500ms, or records lost to a full queue) the lowest level this writer accepts
+     * is raised one step at a time, VERBOSE then DEBUG then INFO up to the urgent level
+     * (priority records are never shed), so whole levels are dropped instead of random lines.
+     * A shed call is rejected on entry by {@link #accepts(int)}, before its message is built.
+     * Other outputs and {@link ALog#getMinLevel()} are not affected. After pressure stays low
+     * for 2 seconds the level is lowered one step. Each change writes a WARN marker row:
+     * <pre>
+     *   ... /W ALogFileWriter - shedding below DEBUG, queue 92% lag 640ms overflow 118
+     *   ... /W ALogFileWriter - recovered to VERBOSE, shed 20331 records
+     * </pre>
+     * Shed records are included in {@link #getDropCount()} and {@link #getShedCount()}.
+     */
+    public void setShedding(boolean enabled) {
+        mShedding = enabled;
+        if (!enabled) {
+            drainTask().signal();   // Drain restores the level.
+        }
+    }
+
+    /**
+     * @return Lowest level currently written, VERBOSE unless shedding.
+     */
+    public int getShedLevel() {
+        return mShedLevel;
+    }
+
+    /**
+     * @return Records shed by adaptive load shedding, since created.
+     */
+    public long getShedCount() {
+        return mShedCount.get();
+    }
+
+    /**
+     * Set scheduler which runs this writer's file i/o, defaults to
+     * {@link ALogScheduler#getDefault()}.
+     */
+    public synchronized void setScheduler(ALogScheduler scheduler) {
+        if (mDrainTask != null) {
+            mScheduler.unregister(mDrainTask);
+            mDrainTask = null;
+        }
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Set durability mode.
+     * <p>
+     * Example, force within 2 seconds and immediately after any ERROR or ASSERT row:
+     * <br><font color="green">
+     *   ALogFileWriter.Default.setDurability(Durability.PERIODIC, 2000, ALog.ERROR);
+     * </font>
+     *
+     * @param periodMilli Maximum time written rows stay unforced, used by PERIODIC.
+     * @param forceLevel  Rows at or above this level are forced right after their batch,
+     *                    used by LEVEL and PERIODIC, NOLOGGING to disable.
+     */
+    public synchronized void setDurability(Durability durability, long periodMilli, int forceLevel) {
+        mDurability = durability;
+        mForcePeriodMilli = Math.max(1, periodMilli);
+        mForceLevel = forceLevel;
+
+        if (mForceTimer != null) {
+            mForceTimer.cancel(false);
+            mForceTimer = null;
+        }
+        if (durability == Durability.PERIODIC) {
+            // Catch rows left unforced when writing goes idle.
+            mForceTimer = ALogScheduler.schedulePeriodic(new Runnable() {
+                @Override
+                public void run() {
+                    mForceRequested = true;
+                    drainTask().signal();
+                }
+            }, mForcePeriodMilli);
+        }
+    }
+
+    public Durability getDurability() {
+        return mDurability;
+    }
+
+    /**
+     * Set period of trace occurrence count summary rows, ex:
+     * "trace counts: trace#3=17 trace#5=2". Summary only written if traces were logged.
+     *
+     * @param periodMilli Zero to disable, default is 60 seconds.
+     */
+    public synchronized void setTraceSummaryPeriod(long periodMilli) {
+        mTraceSummaryMilli = periodMilli;
+        if (mTraceSummaryTimer != null) {
+            mTraceSummaryTimer.cancel(false);
+            mTraceSummaryTimer = null;
+        }
+    }
+
+    /**
+     * Started on first logged Throwable.
+     */
+    private synchronized void startTraceSummary() {
+        if (mTraceSummaryTimer == null && mTraceSummaryMilli > 0) {
+            mTraceSummaryTimer = ALogScheduler.schedulePeriodic(new Runnable() {
+                @Override
+                public void run() {
+                    // Counts are taken by the drain as it writes them, into the file
+                    // holding the traces they count.
+                    mTraceSummaryDue = true;
+                    drainTask().signal();
+                }
+            }, mTraceSummaryMilli);
+        }
+    }
+
+    /**
+     * Set file size which when exceeded causes log to be archived and a new file started.
+     */
+    public void setFileSizeLimit(long fileSizeLimit) {
+        mFileSizeLimit = fileSizeLimit;
+    }
+
+    public long getFileSizeLimit() {
+        return mFileSizeLimit;
+    }
+
     /**
      * Set file directory. Defaults to Cache directory.
      * <ul>
@@ -112,21 +497,22 @@ public class ALogFileWriter implements ALogOut.LogPrinter {
     }
 
     /**
-     * Open default file with default file size.
+     * Open this process's segment of default file with default file size.
      *
      * <pre>
-     * File stored in Download directory:
-     *     /storage/emulated/0/Download/package.name.filelog.txt
+     * File stored in Download directory, main process then other processes:
+     *     /storage/emulated/0/Download/filelog.txt
+     *     /storage/emulated/0/Download/process.name.pid.filelog.txt
      * Example:
-     *     /storage/emulated/0/Download/com.wsicarousel.android.weather.filelog.txt
+     *     /storage/emulated/0/Download/filelog.txt
+     *     /storage/emulated/0/Download/com.wsicarousel.android.weather_remote.1250.filelog.txt
      * </pre>
      */
     @Override
     public void open(Context context) {
         // AndroidManifest sets up sharable directory for logs
         // setDir(context.getFilesDir().getAbsolutePath() + "/logs");
-        final long FILE_SIZE_LIMIT = 1024 * 1024 * 10;
-        open(context.getPackageName() + "." + mFilename, FILE_SIZE_LIMIT);
+        open(segmentName(context, mFilename), FILE_SIZE_LIMIT);
     }
 
     /**
@@ -135,85 +521,322 @@ public class ALogFileWriter implements ALogOut.LogPrinter {
      * Only one archived file kept.
      */
     public void open(String logFileName, long fileSizeLimit) {
-        mFileSizeLimit = fileSizeLimit;
+        synchronized (mDrainLock) {
+            synchronized (this) {
+                mFileSizeLimit = fileSizeLimit;
+                closeChannel(false);
 
-        File dir = new File(mLogDir);
-        makeDirs(dir);
+                File dir = new File(mLogDir);
+                makeDirs(dir);
 
-        mLogFile = new File(mLogDir, logFileName);
-        mLogFileName = mLogFile.getName();
-        setPermissions(mLogFile);
+                mLogFile = new File(mLogDir, logFileName);
+                mLogFileName = mLogFile.getName();
+                pruneRuns(dir, mLogFileName);
+                openLocked();
+            }
+        }
+    }
 
-        if (!mLogFile.exists()) {
-            try {
+    /**
+     * Open default file in background, see {@link #openAsync(String, long)}.
+     */
+    public void openAsync(Context context) {
+        openAsync(segmentName(context, mFilename), FILE_SIZE_LIMIT);
+    }
+
+    /**
+     * Per process segment name of <b>logFileName</b>. The main process keeps the stable
+     * <b>logFileName</b>, other processes use "process.name.pid.logFileName" with a ':' in
+     * the process name replaced by '_'.
+     */
+    public static String segmentName(Context context, String logFileName) {
+        String processName = getProcessName(context);
+        if (processName.equals(context.getPackageName())) {
+            return logFileName;
+        }
+        return processName.replace(':', '_') + "." + android.os.Process.myPid() + "." + logFileName;
+    }
+
+    /**
+     * @return Name of this process, ex "com.landenlabs.all_log:remote", package name if unknown.
+     */
+    public static String getProcessName(Context context) {
+        try (FileInputStream in = new FileInputStream("/proc/self/cmdline")) {
+            byte[] buf = new byte[256];
+            int len = in.read(buf);
+            int end = 0;
+            while (end < len && buf[end] > ' ') {
+                end++;
+            }
+            if (end > 0) {
+                return new String(buf, 0, end, "UTF-8");
+            }
+        } catch (IOException ignore) {
+        }
+        return context.getPackageName();
+    }
+
+    /**
+     * Set number of earlier runs kept per process when a segment is opened, defaults to 1.
+     * Segments of older runs (pid no longer alive) and their archives are deleted.
+     */
+    public void setKeepRuns(int runs) {
+        mKeepRuns = runs;
+    }
+
+    /**
+     * Same as {@link #open(String, long)} but returns immediately, safe to call from the
+     * main thread during startup. Directory, file and any archive of an oversized file are
+     * prepared on this writer's scheduler. Records logged meanwhile are held in a bounded
+     * pre-open buffer and written first once the file is open.
+     */
+    public void openAsync(String logFileName, final long fileSizeLimit) {
+        final File logFile;
+        final int gen;
+        synchronized (mDrainLock) {
+            synchronized (this) {
+                mFileSizeLimit = fileSizeLimit;
+                closeChannel(false);
+                logFile = new File(mLogDir, logFileName);
+                mLogFile = logFile;
+                mLogFileName = logFile.getName();
+                mState = State.OPENING;
+                gen = ++mOpenGen;
+            }
+        }
+
+        final Runnable opener = new Runnable() {
+            @Override
+            public void run() {
+                // Slow part without writer locks, nothing is written while opening.
+                File dir = logFile.getParentFile();
+                makeDirs(dir);
+                pruneRuns(dir, logFile.getName());
+                try {
+                    if (!logFile.exists()) {
+                        //noinspection ResultOfMethodCallIgnored
+                        logFile.createNewFile();
+                    }
+                    if (logFile.length() > fileSizeLimit) {
+                        synchronized (DIR_LOCK) {
+                            FileLock lock = lockDir(dir, false);
+                            try {
+                                archiveLog(logFile);
+                                deleteFile(logFile);
+                                //noinspection ResultOfMethodCallIgnored
+                                logFile.createNewFile();
+                            } finally {
+                                unlockDir(lock);
+                            }
+                        }
+                    }
+                } catch (IOException ex) {
+                    // File kept if archive failed, openLocked retries the rotation and reports it.
+                }
+
+                synchronized (mDrainLock) {
+                    synchronized (ALogFileWriter.this) {
+                        if (gen == mOpenGen && mState == State.OPENING) {
+                            if (mClearPending && logFile.exists()) {
+                                deleteFile(logFile);
+                            }
+                            mClearPending = false;
+                            openLocked();
+                            writePreOpen();
+                        }
+                    }
+                }
+                drainTask().signal();
+            }
+        };
+        if (!scheduler().execute(opener)) {
+            // Scheduler shut down, open on caller's thread rather than stay OPENING.
+            opener.run();
+        }
+    }
+
+    /**
+     * Create file if missing, archive if too large and open channel.
+     * Caller holds mDrainLock and this.
+     */
+    private void openLocked() {
+        try {
+            if (!mLogFile.exists()) {
                 //noinspection ResultOfMethodCallIgnored
                 mLogFile.createNewFile();
-                setPermissions(mLogFile);
-            } catch (Exception ex) {
+            }
+            setPermissions(mLogFile);
+            checkFileSize();
+            openChannel();
+            mTrace.reset();
+            mState = State.OPEN;
+            mDropReported = false;
+        } catch (IOException ex) {
+            // Report once, retries while failed stay quiet so errors logged to this
+            // writer can not feed back into more errors.
+            if (mState != State.FAILED) {
+                mState = State.FAILED;
                 ALog.e.tagMsg(this, ex);
             }
         }
+    }
 
-        checkFileSize();
+    private void openChannel() throws IOException {
+        mChannel = new FileOutputStream(mLogFile, true).getChannel();
+        mFileSize = mChannel.size();
+    }
 
+    /**
+     * Close channel, optionally ending the last row. Caller holds this.
+     */
+    private void closeChannel(boolean endLine) {
         try {
-            mBufferedWriter = new BufferedWriter(new java.io.FileWriter(mLogFile, true));
-        } catch (IOException ex) {
-            ALog.e.tagMsg(this, ex);
+            if (mChannel != null) {
+                if (endLine) {
+                    mChannel.write(ByteBuffer.wrap(new byte[] { '\n' }));
+                }
+                mChannel.close();
+            }
+        } catch (IOException e) {
+            // ALog.e.tagMsg(this, Log.getStackTraceString(e));
+        } finally {
+            mChannel = null;
         }
     }
 
+    /**
+     * @return Log file of this process's segment, each written batch is already passed
+     * to the file system.
+     */
     public File getFile() {
-        if (mBufferedWriter != null) {
-            try {
-                mBufferedWriter.flush();
-            } catch (IOException e) {
-                // ALog.e.tagMsg(this, Log.getStackTraceString(e));
-            }
-        }
         return mLogFile;
     }
 
     public boolean isOpen() {
-        return mBufferedWriter != null;
+        return mState == State.OPEN;
+    }
+
+    public State getState() {
+        return mState;
     }
 
     /**
-     * Close current log file.
-     * Subsequent logging will fail until re-opened.
+     * Close current log file, records already queued are written first.
+     * Subsequent logging is dropped until re-opened.
      */
+    @Override
     public void close() {
-        try {
-            if (mBufferedWriter != null) {
-                mBufferedWriter.write('\n');
-                // mBufferedWriter.flush( );
-                mBufferedWriter.close();
-                mBufferedWriter = null;
+        synchronized (mDrainLock) {
+            drainLocked(Integer.MAX_VALUE);
+            synchronized (this) {
+                closeChannel(true);
+                mState = State.CLOSED;
+                dropPreOpen();
             }
-        } catch (IOException e) {
-            // ALog.e.tagMsg(this, Log.getStackTraceString(e));
         }
     }
 
     /**
-     * Close and Delete file. Log file is not re-opened, so subsequent logging will fail.
+     * Close this writer for good, ex: a file no longer used after a config reload.
+     * Records already queued are written first. Its scheduler task and timers are removed,
+     * records logged afterwards are counted as dropped without being queued.
      */
-    public void delete() {
+    public void release() {
+        mReleased = true;
         close();
-        if (mLogFile != null) {
-            deleteFile(mLogFile);
+        synchronized (mDrainLock) {
+            if (mShedTimer != null) {
+                mShedTimer.cancel(false);
+                mShedTimer = null;
+            }
+        }
+        synchronized (this) {
+            setDurability(Durability.NONE, mForcePeriodMilli, mForceLevel);
+            setTraceSummaryPeriod(0);
+            if (mDrainTask != null) {
+                // Task is kept, a racing producer's signal runs it once without registering.
+                mScheduler.unregister(mDrainTask);
+            }
         }
     }
 
+    /**
+     * Close and Delete file. Log file is not re-opened, so subsequent logging is dropped.
+     */
+    public void delete() {
+        synchronized (mDrainLock) {
+            synchronized (this) {
+                closeChannel(false);
+                mState = State.CLOSED;
+                dropPreOpen();
+                if (mLogFile != null) {
+                    deleteFile(mLogFile);
+                }
+            }
+        }
+    }
 
     /**
-     * Clear current logging by closing and deleting current file, then re-open file.
+     * Clear current logging by deleting current file and re-opening an empty file.
+     * Done as one step between batches, records queued before or during the clear
+     * go to the new file. While {@link State#OPENING} only the request is recorded,
+     * the background opener clears the file before opening it.
      */
     public void clear() {
-        close();
+        synchronized (mDrainLock) {
+            synchronized (this) {
+                if (mState == State.OPENING) {
+                    mClearPending = true;
+                } else {
+                    clearLocked();
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #clear()} but returns immediately without file i/o, safe to call from
+     * the main thread. The file is cleared on this writer's scheduler (or by the opener)
+     * before the next batch is written, so records logged after this call land in the
+     * new file.
+     */
+    public void clearAsync() {
+        mClearPending = true;
+        drainTask().signal();
+    }
+
+    /**
+     * Delete current file and open an empty one. Caller holds mDrainLock and this.
+     */
+    private void clearLocked() {
+        mClearPending = false;
+        closeChannel(false);
         if (mLogFile != null) {
-            deleteFile(mLogFile);
-            open(mLogFileName, mFileSizeLimit);
+            if (mLogFile.exists()) {
+                deleteFile(mLogFile);
+            }
+            makeDirs(mLogFile.getParentFile());
+            openLocked();
+        }
+    }
+
+    /**
+     * Archive current file now, as if its size limit was reached, and continue in a new file.
+     */
+    public void rotate() {
+        synchronized (mDrainLock) {
+            synchronized (this) {
+                if (mLogFile != null && mState != State.CLOSED) {
+                    try {
+                        rotateLocked();
+                        openChannel();
+                        mState = State.OPEN;
+                    } catch (IOException ex) {
+                        mState = State.FAILED;
+                        ALog.e.tagMsg(this, ex);
+                    }
+                }
+            }
         }
     }
 
@@ -222,155 +845,827 @@ public class ALogFileWriter implements ALogOut.LogPrinter {
      */
     @Override
     public  void println(int level, String tag, String msg) {
-        initWriterThread();
-        try {
-            mWriteQueue.add(formatMsg(level, tag, msg) + "\n");
-        } catch (IllegalStateException ignore) {
+        println(level, tag, msg, null);
+    }
+
+    /**
+     * @return False, and counts a shed record, if <b>level</b> is below the shed level.
+     */
+    @Override
+    public boolean accepts(int level) {
+        if (level < mShedLevel) {
+            mShedCount.incrementAndGet();
+            mDropCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Print log level, tag, message and Throwable. Throwable is queued by reference,
+     * its stack trace is rendered (and folded if repeated) on the writer thread.
+     *
+     * @see ALogTrace
+     */
+    @Override
+    public void println(int level, String tag, String msg, Throwable tr) {
+        if (mReleased) {
+            mDropCount.incrementAndGet();
+            return;
+        }
+        if (!accepts(level)) {
+            return;
+        }
+        if (tr != null && mTraceSummaryTimer == null && mTraceSummaryMilli > 0) {
+            startTraceSummary();
+        }
+        final boolean urgent = (level >= mUrgentLevel);
+        boolean added;
+        if (mQueueMode == QueueMode.PER_THREAD) {
+            ALogRing ring = threadRing();
+            ALogRecord rec = new ALogRecord(level, tag, msg, tr, ring.ownerId, ring.nextSeq());
+            added = urgent ? mUrgentQueue.offer(rec) : ring.offer(rec);
+        } else {
             // Is full - ignore it
+            ALogRecord rec = new ALogRecord(level, tag, msg, tr, Thread.currentThread().getId(), 0);
+            added = urgent ? mUrgentQueue.offer(rec) : mWriteQueue.offer(rec);
+        }
+        if (added) {
+            drainTask().signal();
+        } else {
+            mDropCount.incrementAndGet();
+            mOverflowCount.incrementAndGet();
+            if (urgent) {
+                mUrgentDropCount.incrementAndGet();
+            }
         }
     }
 
     /**
-     * Start worker thread to complete file i/o.
+     * @return Records dropped since created, because queue or ring was full, shed, or
+     * logged while closed or failed.
      */
-    private void initWriterThread() {
-        if (mWriterThread == null) {
-            mWriterThread = new Thread("ALogFileWriter") {
-                @Override
-                public void run() {
-                    try {
-                        Looper.prepare();
-                        while (!isInterrupted()) {
-                            String msg = mWriteQueue.take();
-                            if (msg != null) {
-                                writeln(msg);
-                            }
-                        }
-                    } catch (Exception ex) {
-                        ALog.e.tagMsg(this, "Writing log file ", ex);
+    public long getDropCount() {
+        return mDropCount.get();
+    }
+
+    /**
+     * @return Records dropped because queue or ring was full, since created.
+     * Included in {@link #getDropCount()}.
+     */
+    public long getOverflowCount() {
+        return mOverflowCount.get();
+    }
+
+    /**
+     * @return Priority lane records dropped, since created. Included in {@link #getDropCount()}.
+     */
+    public long getUrgentDropCount() {
+        return mUrgentDropCount.get();
+    }
+
+    /**
+     * @return Bytes written to log files since created, including archived files.
+     */
+    public long getBytesWritten() {
+        return mBytesWritten;
+    }
+
+    /**
+     * Get calling thread's ring, register a new ring on first use.
+     */
+    private ALogRing threadRing() {
+        ALogRing ring = mThreadRing.get();
+        if (ring == null) {
+            ring = new ALogRing(mRingCapacity);
+            mThreadRing.set(ring);
+            mRings.add(ring);
+        }
+        return ring;
+    }
+
+    /**
+     * Get scheduling handle, register with scheduler on first use.
+     */
+    private ALogScheduler scheduler() {
+        drainTask();
+        return mScheduler;
+    }
+
+    private ALogScheduler.Task drainTask() {
+        ALogScheduler.Task task = mDrainTask;
+        if (task == null) {
+            synchronized (this) {
+                if (mDrainTask == null) {
+                    if (mScheduler == null) {
+                        mScheduler = ALogScheduler.getDefault();
                     }
+                    mDrainTask = mScheduler.register(this);
                 }
-            };
-            mWriterThread.start();
+                task = mDrainTask;
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Write up to <b>maxRecords</b> pending records, called by scheduler.
+     *
+     * @return True if more records are pending.
+     */
+    @WorkerThread
+    @Override
+    public boolean drain(int maxRecords) {
+        synchronized (mDrainLock) {
+            drainLocked(maxRecords);
         }
+        return hasPending();
     }
 
     /**
-     * Wite log level, tag and message.
+     * Write up to <b>maxRecords</b> pending records. Caller holds mDrainLock.
      */
     @WorkerThread
-    private  void writeln(String msg) {
-        if (mBufferedWriter != null) {
+    private void drainLocked(int maxRecords) {
+        if (mClearPending) {
             synchronized (this) {
-                try {
-                    if (checkFileSize()) {
-                        mBufferedWriter.close();
-                        mBufferedWriter = new BufferedWriter(new java.io.FileWriter(mLogFile, true));
+                // While opening the opener clears the file.
+                if (mClearPending && mState != State.OPENING) {
+                    clearLocked();
+                }
+            }
+        }
+        final ArrayList<ALogRecord> batch = mBatch;
+        final int fill = (mShedding || mShedLevel != ALog.VERBOSE) ? fillPercent() : 0;
+        // Priority lane is always emptied, so a flood of low level records can not push
+        // it out. Its records then wait their turn in global order like any other.
+        final int held = mHeld.size();
+        mUrgentQueue.drainTo(mHeld);
+        mWriteQueue.drainTo(mHeld, Math.max(0, maxRecords - mHeld.size()));
+        if (mHeld.size() != held) {
+            Collections.sort(mHeld, ALogRecord.ORDER);
+        }
+        mergeRecords(batch, maxRecords);
+        mHeldPending = !mHeld.isEmpty();
+        if (mShedding || mShedLevel != ALog.VERBOSE) {
+            adaptShedding(batch, fill);
+        }
+        if (!batch.isEmpty() || mTraceSummaryDue) {
+            try {
+                writeBatch(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+        if (mForceRequested) {
+            mForceRequested = false;
+            synchronized (this) {
+                if (mDirty && mChannel != null) {
+                    try {
+                        force();
+                    } catch (IOException ex) {
+                        ALog.e.tagMsg(this, ex);
                     }
+                }
+            }
+        }
+    }
 
-                    mBufferedWriter.write(msg);
-                    mBufferedWriter.flush();
-                } catch (IOException ex) {
-                    ALog.e.tagMsg(this, ex);
+    /**
+     * @return Highest percent full of the queues and rings.
+     */
+    private int fillPercent() {
+        int size = mWriteQueue.size();
+        int fill = size * 100 / Math.max(1, size + mWriteQueue.remainingCapacity());
+        size = mUrgentQueue.size();
+        fill = Math.max(fill, size * 100 / Math.max(1, size + mUrgentQueue.remainingCapacity()));
+        for (ALogRing ring : mRings) {
+            fill = Math.max(fill, ring.fillPercent());
+        }
+        return fill;
+    }
+
+    /**
+     * Raise or lower shed level from queue <b>fill</b> before drain, lag of oldest drained
+     * record and overflow drops. Adds a marker record to <b>batch</b> on each change.
+     * Caller holds mDrainLock.
+     */
+    @WorkerThread
+    private void adaptShedding(ArrayList<ALogRecord> batch, int fill) {
+        final long nowNano = System.nanoTime();
+        long oldestNano = nowNano;
+        for (ALogRecord rec : batch) {
+            oldestNano = Math.min(oldestNano, rec.timeNano);
+        }
+        final long lagMilli = (nowNano - oldestNano) / 1000000;
+        // Only queue or ring full drops are pressure, not drops while closed or opening.
+        final long drops = mOverflowCount.get();
+        final long overflow = drops - mShedDropMark;
+        mShedDropMark = drops;
+
+        int level = mShedLevel;
+        final int maxLevel = Math.max(ALog.VERBOSE, mUrgentLevel);
+        if (!mShedding) {
+            if (level != ALog.VERBOSE) {
+                setShedLevel(batch, ALog.VERBOSE, "shedding disabled, shed "
+                        + (mShedCount.get() - mShedCountMark) + " records");
+            }
+        } else if (fill >= SHED_HIGH_PERCENT || lagMilli >= SHED_LAG_HIGH_MILLI || overflow > 0) {
+            mShedCalmNano = nowNano;
+            if (level < maxLevel && nowNano - mShedChangeNano >= SHED_STEP_MILLI * 1000000) {
+                if (level == ALog.VERBOSE) {
+                    mShedCountMark = mShedCount.get();
                 }
+                setShedLevel(batch, level + 1, "shedding below " + levelName(level + 1)
+                        + ", queue " + fill + "% lag " + lagMilli + "ms overflow " + overflow);
             }
+        } else if (fill > SHED_LOW_PERCENT || lagMilli > SHED_LAG_LOW_MILLI) {
+            mShedCalmNano = nowNano;
+        } else if (level > ALog.VERBOSE && nowNano - mShedCalmNano >= SHED_RECOVER_MILLI * 1000000
+                && nowNano - mShedChangeNano >= SHED_RECOVER_MILLI * 1000000) {
+            mShedCalmNano = nowNano;
+            setShedLevel(batch, level - 1, (level - 1 == ALog.VERBOSE)
+                    ? "recovered to VERBOSE, shed " + (mShedCount.get() - mShedCountMark) + " records"
+                    : "recovering, shedding below " + levelName(level - 1));
+        }
+    }
+
+    /**
+     * Change shed level, add marker record and keep drain running while shedding so
+     * recovery is seen even if nothing else is logged. Caller holds mDrainLock.
+     */
+    @WorkerThread
+    private void setShedLevel(ArrayList<ALogRecord> batch, int level, String marker) {
+        mShedLevel = level;
+        mShedChangeNano = System.nanoTime();
+        batch.add(new ALogRecord(ALog.WARN, TAG, marker, Thread.currentThread().getId(), 0));
+
+        if (level != ALog.VERBOSE && mShedTimer == null) {
+            mShedTimer = ALogScheduler.schedulePeriodic(new Runnable() {
+                @Override
+                public void run() {
+                    drainTask().signal();
+                }
+            }, SHED_RECOVER_MILLI / 4);
+        } else if (level == ALog.VERBOSE && mShedTimer != null) {
+            mShedTimer.cancel(false);
+            mShedTimer = null;
         }
+    }
 
-        if (mBufferedWriter == null) {
-            ALog.e.tagMsg(this, "You have to call ALogFileWriter.open(...) before starting to log");
+    private static String levelName(int level) {
+        switch (level) {
+            case ALog.VERBOSE: return "VERBOSE";
+            case ALog.DEBUG:   return "DEBUG";
+            case ALog.INFO:    return "INFO";
+            case ALog.WARN:    return "WARN";
+            case ALog.ERROR:   return "ERROR";
+            default:           return String.valueOf(level);
         }
     }
 
     @Override
-    public int maxTagLen() {
-        return MAX_TAG_LEN; // No real limit but 100 is a good value.
+    public boolean hasPending() {
+        return mHeldPending || !mUrgentQueue.isEmpty() || !mWriteQueue.isEmpty() || !ringsEmpty();
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void setPermissions(File file){
-        file.setReadable(true, true);
-        file.setWritable(true, true);
+    /**
+     * Merge held records and pending records of all per-thread rings into <b>batch</b>
+     * in global order, up to <b>maxRecords</b>. Every source is already ordered, so always
+     * taking the oldest head leaves only newer records for the next batch and consecutive
+     * batches stay in global order. Release rings of terminated threads once empty.
+     * <p>
+     * Order is as records are queued, a record stamped but not yet queued by its producer
+     * while a batch is merged can still follow newer rows.
+     */
+    @WorkerThread
+    private void mergeRecords(ArrayList<ALogRecord> batch, int maxRecords) {
+        final PriorityQueue<ALogRing> heads = mHeads;
+        for (ALogRing ring : mRings) {
+            boolean alive = ring.isOwnerAlive();
+            if (!ring.isEmpty()) {
+                heads.add(ring);
+            } else if (!alive) {
+                mRings.remove(ring);
+            }
+        }
+
+        final ArrayList<ALogRecord> held = mHeld;
+        int heldIdx = 0;
+        while (batch.size() < maxRecords) {
+            ALogRing ring = heads.peek();
+            if (heldIdx < held.size()
+                    && (ring == null || ALogRecord.ORDER.compare(held.get(heldIdx), ring.peek()) <= 0)) {
+                batch.add(held.get(heldIdx++));
+            } else if (ring != null) {
+                heads.poll();
+                batch.add(ring.poll());
+                if (!ring.isEmpty()) {
+                    heads.add(ring);
+                }
+            } else {
+                break;
+            }
+        }
+        heads.clear();
+        held.subList(0, heldIdx).clear();
+    }
+
+    private boolean ringsEmpty() {
+        for (ALogRing ring : mRings) {
+            if (!ring.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write records, already merged into global order by {@link #mergeRecords}.
+     */
+    @WorkerThread
+    private void writeBatch(ArrayList<ALogRecord> batch) {
+        synchronized (this) {
+            if (mState == State.FAILED) {
+                openLocked();
+            }
+            if (mState == State.OPENING) {
+                holdPreOpen(batch);
+                return;
+            }
+            if (mState != State.OPEN) {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                mDropCount.addAndGet(batch.size());
+                if (!mDropReported) {
+                    mDropReported = true;
+                    ALog.e.tagMsg(this, (mState == State.FAILED)
+                            ? "Log file unavailable, dropping records until it reopens"
+                            : "You have to call ALogFileWriter.open(...) before starting to log");
+                }
+                return;
+            }
+            writePreOpen();
+            writeRows(batch);
+        }
     }
 
-    private String formatMsg(int level, String tag, String msg) {
-        return String.format(mMsgFmt, getCurrentTimeStamp(), LEVELS[level&7], tag, msg);
+    /**
+     * Write records held while opening, caller holds this.
+     */
+    private void writePreOpen() {
+        if (mState == State.OPEN && !mPreOpen.isEmpty()) {
+            ArrayList<ALogRecord> held = new ArrayList<>(mPreOpen);
+            mPreOpen.clear();
+            writeRows(held);
+        }
     }
 
     /**
-     * @return Current time formatted for logging.
+     * Hold records until open completes, caller holds this. When full a priority
+     * record replaces the oldest held low priority record, otherwise it is dropped.
      */
-    private static String getCurrentTimeStamp() {
-        String currentTimeStamp = null;
+    private void holdPreOpen(ArrayList<ALogRecord> batch) {
+        final int urgentLevel = mUrgentLevel;
+        for (ALogRecord rec : batch) {
+            if (mPreOpen.size() < PRE_OPEN_CAPACITY) {
+                mPreOpen.add(rec);
+                continue;
+            }
+            mDropCount.incrementAndGet();
+            if (rec.level >= urgentLevel) {
+                int idx = 0;
+                while (idx < mPreOpen.size() && mPreOpen.get(idx).level >= urgentLevel) {
+                    idx++;
+                }
+                if (idx < mPreOpen.size()) {
+                    mPreOpen.remove(idx);
+                    mPreOpen.add(rec);
+                } else {
+                    mUrgentDropCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void dropPreOpen() {
+        mDropCount.addAndGet(mPreOpen.size());
+        mPreOpen.clear();
+    }
 
+    /**
+     * Encode and write ordered records, caller holds this and state is OPEN.
+     */
+    @WorkerThread
+    private void writeRows(ArrayList<ALogRecord> batch) {
         try {
-            currentTimeStamp = dateFmt.format(new Date());
-        } catch (Exception e) {
-            // ALog.e.tagMsg(this, Log.getStackTraceString(e));
+            final Durability durability = mDurability;
+            final int forceLevel = (durability == Durability.NONE) ? ALog.NOLOGGING : mForceLevel;
+            boolean forceNow = false;
+            for (ALogRecord rec : batch) {
+                putRecord(rec);
+                forceNow |= (rec.level >= forceLevel);
+            }
+            putTraceSummary();
+            writeBuffers();
+            mDirty = true;
+            if (forceNow || (durability == Durability.PERIODIC
+                    && System.currentTimeMillis() - mLastForceMilli >= mForcePeriodMilli)) {
+                force();
+            }
+        } catch (IOException ex) {
+            // Batch may be partly written, count it as dropped and reopen on next batch.
+            clearBuffers();
+            closeChannel(false);
+            mState = State.FAILED;
+            mDropCount.addAndGet(batch.size());
+            ALog.e.tagMsg(this, ex);
+            return;
+        }
+        try {
+            if (checkFileSize()) {
+                openChannel();
+            }
+        } catch (IOException ex) {
+            // Batch already written, channel closed by rotation, reopen on next batch.
+            closeChannel(false);
+            mState = State.FAILED;
+            ALog.e.tagMsg(this, ex);
         }
+    }
 
-        return currentTimeStamp;
+    /**
+     * Encode trace occurrence count row if due, counts cover traces of the current file.
+     */
+    @WorkerThread
+    private void putTraceSummary() throws IOException {
+        if (mTraceSummaryDue) {
+            mTraceSummaryDue = false;
+            String counts = mTrace.takeCounts();
+            if (counts != null) {
+                putRecord(new ALogRecord(ALog.INFO, "ALogTrace", counts, Thread.currentThread().getId(), 0));
+            }
+        }
     }
 
     /**
-     * Zip Archive full log file and open a new log file.
+     * Encode one row, default format is encoded field by field without String.format.
      */
-    private void archiveByGzip() {
+    @WorkerThread
+    private void putRecord(ALogRecord rec) throws IOException {
+        final String msgFmt = mMsgFmt;
+        if (DEFAULT_FMT.equals(msgFmt)) {
+            put(getTimeStamp(rec.timeMilli));
+            put('/');
+            put(LEVELS[rec.level & 7]);
+            put(' ');
+            put(rec.tag);
+            put(" - ");
+            if (rec.mdc != null) {
+                put(rec.mdc.toString());
+                put(' ');
+            }
+            put(rec.msg);
+        } else {
+            put(String.format(msgFmt, getTimeStamp(rec.timeMilli).toString(), LEVELS[rec.level & 7],
+                    rec.tag, (rec.mdc != null) ? rec.mdc + " " + rec.msg : rec.msg));
+        }
+        if (rec.thrown != null) {
+            mTraceSb.setLength(0);
+            mTrace.render(rec.thrown, mTraceSb.append('\n'));
+            put(mTraceSb);
+        }
+        put('\n');
+    }
 
-        byte[] buffer = new byte[1024];
+    /**
+     * Encode text, spills into next buffer (or writes full buffers) as needed.
+     */
+    @WorkerThread
+    private void put(CharSequence src) throws IOException {
+        if (src == null) {
+            src = "null";
+        }
+        final int end = src.length();
+        int start = 0;
+        while (start < end) {
+            ByteBuffer buf = buffer();
+            int room = buf.remaining() / ALogUtf8.MAX_BYTES_PER_CHAR;
+            if (room < 2) {
+                nextBuffer();
+                continue;
+            }
+            int stop = ALogUtf8.splitAt(src, start, Math.min(end, start + room));
+            ALogUtf8.put(buf, src, start, stop);
+            start = stop;
+        }
+    }
+
+    /**
+     * Encode ASCII character.
+     */
+    @WorkerThread
+    private void put(char chr) throws IOException {
+        if (!buffer().hasRemaining()) {
+            nextBuffer();
+        }
+        buffer().put((byte) chr);
+    }
+
+    private ByteBuffer buffer() {
+        return buffer(mBufIdx);
+    }
+
+    private ByteBuffer buffer(int idx) {
+        ByteBuffer buf = mBuffers[idx];
+        if (buf == null) {
+            buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            mBuffers[idx] = buf;
+        }
+        return buf;
+    }
+
+    private void nextBuffer() throws IOException {
+        if (mBufIdx + 1 < BUFFER_COUNT) {
+            mBufIdx++;
+        } else {
+            writeBuffers();
+        }
+    }
 
+    /**
+     * Gathering write of all filled buffers.
+     */
+    @WorkerThread
+    private void writeBuffers() throws IOException {
+        final int count = mBufIdx + 1;
+        long remaining = 0;
+        for (int idx = 0; idx < count; idx++) {
+            // Buffer cast, covariant ByteBuffer.flip() does not exist on older devices.
+            remaining += ((Buffer) buffer(idx)).flip().remaining();
+        }
         try {
+            while (remaining > 0) {
+                long wrote = mChannel.write(mBuffers, 0, count);
+                remaining -= wrote;
+                mFileSize += wrote;
+                mBytesWritten += wrote;
+            }
+        } finally {
+            clearBuffers();
+        }
+    }
 
-            File dstFile = new File(mLogDir, mLogFileName + ".gz");
-            if (dstFile.exists()) {
-                deleteFile(dstFile);
+    /**
+     * Force all rows written so far to storage (group commit).
+     */
+    @WorkerThread
+    private void force() throws IOException {
+        mChannel.force(false);
+        mDirty = false;
+        mLastForceMilli = System.currentTimeMillis();
+    }
+
+    private void clearBuffers() {
+        for (ByteBuffer buf : mBuffers) {
+            if (buf != null) {
+                ((Buffer) buf).clear();
             }
+        }
+        mBufIdx = 0;
+    }
 
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-                try (GZIPOutputStream gzout = new GZIPOutputStream(Files.newOutputStream(dstFile.toPath()))) {
-                    try (FileInputStream in = new FileInputStream(mLogFile)) {
-                        int len;
-                        while ((len = in.read(buffer)) > 0) {
-                            gzout.write(buffer, 0, len);
-                        }
+    @Override
+    public int maxTagLen() {
+        return MAX_TAG_LEN; // No real limit but 100 is a good value.
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void setPermissions(File file){
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+    }
+
+    /**
+     * @return Time formatted for logging, whole seconds formatted once per second.
+     */
+    @WorkerThread
+    private CharSequence getTimeStamp(long timeMilli) {
+        final long second = timeMilli / 1000;
+        if (second != mTimeSecond) {
+            try {
+                mTimePrefix = mDateFmt.format(new Date(second * 1000)) + ".";
+            } catch (Exception e) {
+                mTimePrefix = "";
+            }
+            mTimeSecond = second;
+        }
+        final int milli = (int) (timeMilli - second * 1000);
+        mTimeSb.setLength(0);
+        mTimeSb.append(mTimePrefix)
+                .append((char) ('0' + milli / 100))
+                .append((char) ('0' + (milli / 10) % 10))
+                .append((char) ('0' + milli % 10));
+        return mTimeSb;
+    }
+
+    /**
+     * Zip archive full <b>logFile</b> next to it, replacing any previous archive.
+     * Written to a temporary file first, the previous archive is only replaced once
+     * the new one is complete.
+     *
+     * @throws IOException Archive not written, <b>logFile</b> must be kept.
+     */
+    private void archiveByGzip(File logFile) throws IOException {
+        byte[] buffer = new byte[1024];
+        File dstFile = new File(logFile.getParentFile(), logFile.getName() + ".gz");
+        File tmpFile = new File(logFile.getParentFile(), logFile.getName() + ".gz.tmp");
+        try {
+            // FileOutputStream, Files.newOutputStream needs API 26.
+            try (GZIPOutputStream gzout = new GZIPOutputStream(new FileOutputStream(tmpFile))) {
+                try (FileInputStream in = new FileInputStream(logFile)) {
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        gzout.write(buffer, 0, len);
                     }
                 }
             }
-
-            setPermissions(dstFile);
+            if (dstFile.exists()) {
+                deleteFile(dstFile);
+            }
+            if (!tmpFile.renameTo(dstFile)) {
+                throw new IOException("Archive rename failed " + dstFile);
+            }
         } catch (IOException ex) {
-            ex.printStackTrace();
+            if (tmpFile.exists()) {
+                deleteFile(tmpFile);
+            }
+            throw ex;
         }
+        setPermissions(dstFile);
     }
 
     /**
-     *  Archive full log file and open a new log file.
+     * Archive full <b>logFile</b>, caller passes the file it captured (under lock or
+     * before publishing it) rather than reading the writer's current file fields.
+     * Caller deletes <b>logFile</b> only if this returns.
+     *
+     * @throws IOException Archive failed, <b>logFile</b> is unchanged.
      */
-    private void archiveLog() {
-        archiveByGzip();
+    private void archiveLog(File logFile) throws IOException {
+        archiveByGzip(logFile);
     }
 
     /**
-     * If file size has been exceeded, archive current file and open new file.
+     * If file size has been exceeded, archive current file and create new empty file.
+     * Caller must (re)open channel if this returns true.
      *
      * @return True if current file archived and new file created.
+     * @throws IOException Rotation failed, channel is closed and caller must mark FAILED.
      */
-    private boolean checkFileSize() {
-        boolean createdNewLogFile = false;
-        try {
-            if (mLogFile.length() > mFileSizeLimit) {
-                archiveLog();
+    private boolean checkFileSize() throws IOException {
+        long size = (mChannel != null) ? mFileSize : mLogFile.length();
+        if (size > mFileSizeLimit) {
+            rotateLocked();
+            return true;
+        }
+        return false;
+    }
 
+    /**
+     * Close channel, archive current file and create new empty file.
+     * Caller holds this and must (re)open channel.
+     *
+     * @throws IOException Archive failed, current file is kept and caller must mark FAILED.
+     */
+    private void rotateLocked() throws IOException {
+        closeChannel(false);
+        synchronized (DIR_LOCK) {
+            // Readers snapshot archive and live file under a shared lock,
+            // they see either both old or both new files.
+            FileLock lock = lockDir(new File(mLogDir), false);
+            try {
+                archiveLog(mLogFile);
+
+                deleteFile(mLogFile);
                 mLogFile = new File(mLogDir, mLogFileName);
                 //noinspection ResultOfMethodCallIgnored
                 mLogFile.createNewFile();
-                setPermissions(mLogFile);
-                createdNewLogFile = true;
+            } finally {
+                unlockDir(lock);
             }
-        } catch (Exception ignore) {
-            // ALog.e.tagMsg(this, Log.getStackTraceString(e));
         }
+        setPermissions(mLogFile);
+        mFileSize = 0;
+        mTrace.reset();
+    }
 
-        return createdNewLogFile;
+    /**
+     * Lock log directory across processes, only held while rotating, pruning or
+     * snapshotting segments. Caller holds DIR_LOCK.
+     *
+     * @return Lock or null if lock file not available, callers then continue unlocked.
+     */
+    @Nullable
+    static FileLock lockDir(File dir, boolean shared) {
+        FileChannel channel = null;
+        try {
+            channel = new RandomAccessFile(new File(dir, LOCK_NAME), "rw").getChannel();
+            return channel.lock(0, Long.MAX_VALUE, shared);
+        } catch (IOException ex) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignore) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Release lock from {@link #lockDir(File, boolean)}, closing its channel.
+     */
+    static void unlockDir(@Nullable FileLock lock) {
+        if (lock != null) {
+            try {
+                lock.channel().close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Delete segments and archives of earlier runs of this process beyond the kept runs.
+     * Segments of processes still alive are never deleted. No-op if <b>segmentName</b>
+     * is not a per process segment of this pid.
+     */
+    private void pruneRuns(@Nullable File dir, String segmentName) {
+        String pidPart = "." + android.os.Process.myPid() + ".";
+        int pidIdx = segmentName.indexOf(pidPart);
+        String[] names = (dir != null && pidIdx > 0) ? dir.list() : null;
+        if (names == null) {
+            return;
+        }
+        String prefix = segmentName.substring(0, pidIdx + 1);
+        String suffix = segmentName.substring(pidIdx + pidPart.length() - 1);
+
+        // Runs of this process, newest first.
+        HashMap<String, Long> runs = new HashMap<>();
+        for (String name : names) {
+            String pid = segmentPid(name, prefix, suffix);
+            if (pid != null && !name.equals(segmentName) && !new File("/proc", pid).exists()) {
+                long modified = new File(dir, name).lastModified();
+                Long prev = runs.get(pid);
+                runs.put(pid, (prev == null) ? modified : Math.max(prev, modified));
+            }
+        }
+        if (runs.size() <= mKeepRuns) {
+            return;
+        }
+        ArrayList<String> byAge = new ArrayList<>(runs.keySet());
+        final HashMap<String, Long> modifiedByPid = runs;
+        Collections.sort(byAge, new Comparator<String>() {
+            @Override
+            public int compare(String lhs, String rhs) {
+                return Long.compare(modifiedByPid.get(rhs), modifiedByPid.get(lhs));
+            }
+        });
+        synchronized (DIR_LOCK) {
+            FileLock lock = lockDir(dir, false);
+            try {
+                for (int idx = Math.max(0, mKeepRuns); idx < byAge.size(); idx++) {
+                    String pid = byAge.get(idx);
+                    for (String name : names) {
+                        if (pid.equals(segmentPid(name, prefix, suffix))) {
+                            deleteFile(new File(dir, name));
+                        }
+                    }
+                }
+            } finally {
+                unlockDir(lock);
+            }
+        }
+    }
+
+    /**
+     * @return Pid of segment or archive <b>name</b> matching "prefix pid suffix[.gz]", else null.
+     */
+    @Nullable
+    private static String segmentPid(String name, String prefix, String suffix) {
+        String base = name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        if (!base.startsWith(prefix) || !base.endsWith(suffix)
+                || base.length() <= prefix.length() + suffix.length()) {
+            return null;
+        }
+        String pid = base.substring(prefix.length(), base.length() - suffix.length());
+        for (int idx = 0; idx < pid.length(); idx++) {
+            if (!Character.isDigit(pid.charAt(idx))) {
+                return null;
+            }
+        }
+        return pid;
     }
 
     /**
@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free log-linear latency histogram.
+ * <p>
+ * Each power of 2 of nanoseconds is split into 8 linear sub buckets (about 12% precision),
+ * covering 1 nanosecond to over 100 years in 512 counters. Recording is one atomic increment
+ * plus a rarely contended max update.
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = 512;
+
+    public final String name;
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mMax = new AtomicLong();
+
+    public ALogHistogram(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        mCounts.incrementAndGet(bucket(nanos));
+        long max = mMax.get();
+        while (nanos > max && !mMax.compareAndSet(max, nanos)) {
+            max = mMax.get();
+        }
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * @return Representative (middle) value of bucket.
+     */
+    static long bucketValue(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        long width = 1L << (exp - SUB_BITS);
+        long low = (long) (SUB_COUNT + bucket % SUB_COUNT) << (exp - SUB_BITS);
+        return low + width / 2;
+    }
+
+    /**
+     * Take and reset counts recorded since the previous summary. Concurrently recorded
+     * values may land in either this or the next summary, none are lost.
+     *
+     * @return Ex: "fetch n=120 p50=1.21ms p90=3.40ms p99=8.02ms max=12.6ms" or null if empty.
+     */
+    public String takeSummary() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            counts[idx] = mCounts.getAndSet(idx, 0);
+            total += counts[idx];
+        }
+        long max = mMax.getAndSet(0);
+        if (total == 0) {
+            return null;
+        }
+        return name + " n=" + total
+                + " p50=" + duration(Math.min(max, percentile(counts, total, 0.50)))
+                + " p90=" + duration(Math.min(max, percentile(counts, total, 0.90)))
+                + " p99=" + duration(Math.min(max, percentile(counts, total, 0.99)))
+                + " max=" + duration(max);
+    }
+
+    private static long percentile(long[] counts, long total, double fraction) {
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int idx = 0; idx < counts.length; idx++) {
+            seen += counts[idx];
+            if (seen >= rank) {
+                return bucketValue(idx);
+            }
+        }
+        return 0;
+    }
+
+    static String duration(long nanos) {
+        if (nanos < 1000) {
+            return nanos + "ns";
+        } else if (nanos < 1000_000) {
+            return String.format(Locale.US, "%.1fus", nanos / 1e3);
+        } else if (nanos < 1000_000_000) {
+            return String.format(Locale.US, "%.2fms", nanos / 1e6);
+        }
+        return String.format(Locale.US, "%.2fs", nanos / 1e9);
+    }
+}
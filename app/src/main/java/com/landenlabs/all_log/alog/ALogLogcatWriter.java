@@ -0,0 +1,317 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, batched logcat output target.
+ * <p>
+ * Producers only queue a record, the {@link ALogScheduler} i/o executor calls
+ * {@link Log#println(int, String, String)}, so a busy logd never blocks the caller.
+ * Consecutive messages with the same level and tag are coalesced, one per line, into one
+ * logd entry up to {@link #MAX_PAYLOAD} bytes. Larger messages are split at line
+ * boundaries (or at the limit if a single line is too long) rather than being truncated.
+ * Coalesced lines share one logcat timestamp.
+ * <p>
+ * Level filter and overflow policy are independent of other output targets.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   ALogLogcatWriter logcat = new ALogLogcatWriter(1024);
+ *   logcat.setMinLevel(ALog.INFO);
+ *   logcat.setOverflow(ALogLogcatWriter.Overflow.DROP_OLDEST);
+ *   ALog.i.out(logcat);
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ALogLogcatWriter implements ALogOut.LogPrinter, ALogScheduler.Sink {
+
+    /**
+     * logd drops the end of entries larger than its 4068 byte payload (tag, priority and
+     * message), keep headroom for the tag.
+     */
+    public static final int MAX_PAYLOAD = 4000;
+
+    /**
+     * What println does when the queue is full.
+     */
+    public enum Overflow {
+        /** Drop the new message. */
+        DROP_NEWEST,
+        /** Drop the oldest queued message to make room. */
+        DROP_OLDEST,
+        /** Write synchronously on the calling thread, nothing is lost. */
+        CALLER_RUNS
+    }
+
+    /**
+     * Level filter and overflow policy, replaced together so a config reload changes both
+     * with one write. Println reads it once.
+     */
+    private static final class Settings {
+        final int minLevel;
+        final Overflow overflow;
+
+        Settings(int minLevel, Overflow overflow) {
+            this.minLevel = minLevel;
+            this.overflow = overflow;
+        }
+    }
+
+    /** Shared instance, used by the ALogConfig "logcat" sink. */
+    public static final ALogLogcatWriter Default = new ALogLogcatWriter();
+
+    private final ArrayBlockingQueue<ALogRecord> mQueue;
+    private final ALogScheduler.Task mDrainTask;
+    private volatile Settings mSettings = new Settings(ALog.VERBOSE, Overflow.DROP_NEWEST);
+    private final AtomicLong mDropCount = new AtomicLong();
+
+    // Drain only.
+    private final ArrayList<ALogRecord> mBatch = new ArrayList<>();
+    private final StringBuilder mSb = new StringBuilder(MAX_PAYLOAD);
+    private long mDropReported;
+
+    public ALogLogcatWriter() {
+        this(1024);
+    }
+
+    /**
+     * @param queueCapacity Maximum queued messages before the overflow policy applies.
+     */
+    public ALogLogcatWriter(int queueCapacity) {
+        mQueue = new ArrayBlockingQueue<>(queueCapacity);
+        mDrainTask = ALogScheduler.getDefault().register(this);
+    }
+
+    /**
+     * Messages below <b>level</b> are ignored by this target.
+     */
+    public void setMinLevel(int level) {
+        configure(level, null);
+    }
+
+    public int getMinLevel() {
+        return mSettings.minLevel;
+    }
+
+    public void setOverflow(Overflow overflow) {
+        configure(-1, overflow);
+    }
+
+    public Overflow getOverflow() {
+        return mSettings.overflow;
+    }
+
+    /**
+     * Set level filter and overflow policy at once.
+     *
+     * @param level    Minimum level or -1 to leave unchanged.
+     * @param overflow Overflow policy or null to leave unchanged.
+     */
+    public synchronized void configure(int level, @Nullable Overflow overflow) {
+        Settings settings = mSettings;
+        mSettings = new Settings((level == -1) ? settings.minLevel : level,
+                (overflow == null) ? settings.overflow : overflow);
+    }
+
+    /**
+     * @return Messages dropped because queue was full, since created.
+     */
+    public long getDropCount() {
+        return mDropCount.get();
+    }
+
+    @Override
+    public void open(Context context) {
+    }
+
+    @Override
+    public int maxTagLen() {
+        return ALogOut.SysLog.LOG_TAG_LEN;
+    }
+
+    @Override
+    public void println(int priority, String tag, String msg) {
+        println(priority, tag, msg, null);
+    }
+
+    /**
+     * Queue message, Throwable is rendered on the writer thread.
+     */
+    @Override
+    public void println(int priority, String tag, String msg, Throwable tr) {
+        final Settings settings = mSettings;
+        if (priority < settings.minLevel) {
+            return;
+        }
+        ALogRecord rec = new ALogRecord(priority, tag, msg, tr, 0, 0);
+        if (!mQueue.offer(rec)) {
+            switch (settings.overflow) {
+                case DROP_OLDEST:
+                    while (!mQueue.offer(rec)) {
+                        if (mQueue.poll() != null) {
+                            mDropCount.incrementAndGet();
+                        }
+                    }
+                    break;
+                case CALLER_RUNS:
+                    synchronized (mSb) {
+                        mSb.setLength(0);
+                        append(rec);
+                        write(rec.level, rec.tag, mSb);
+                    }
+                    return;
+                default:
+                    mDropCount.incrementAndGet();
+                    return;
+            }
+        }
+        mDrainTask.signal();
+    }
+
+    @WorkerThread
+    @Override
+    public boolean drain(int maxRecords) {
+        mQueue.drainTo(mBatch, maxRecords);
+        // Shared with CALLER_RUNS.
+        synchronized (mSb) {
+            reportDrops();
+            ALogRecord first = null;
+            mSb.setLength(0);
+            for (ALogRecord rec : mBatch) {
+                if (first != null && (rec.level != first.level || !rec.tag.equals(first.tag)
+                        || mSb.length() + 1 + rec.msg.length() > MAX_PAYLOAD
+                        || rec.thrown != null)) {
+                    write(first.level, first.tag, mSb);
+                    first = null;
+                    mSb.setLength(0);
+                }
+                if (first == null) {
+                    first = rec;
+                } else {
+                    mSb.append('\n');
+                }
+                append(rec);
+            }
+            if (first != null) {
+                write(first.level, first.tag, mSb);
+            }
+        }
+        mBatch.clear();
+        return hasPending();
+    }
+
+    @Override
+    public boolean hasPending() {
+        return !mQueue.isEmpty();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void append(ALogRecord rec) {
+        if (rec.mdc != null) {
+            mSb.append(rec.mdc).append(' ');
+        }
+        mSb.append(rec.msg);
+        if (rec.thrown != null) {
+            mSb.append('\n').append(ALogOut.SysLog.TRACE.render(rec.thrown));
+        }
+    }
+
+    /**
+     * Tell logcat reader how many messages were dropped since last report.
+     */
+    private void reportDrops() {
+        long dropped = mDropCount.get();
+        if (dropped != mDropReported) {
+            Log.println(Log.WARN, ALog.TAG_PREFIX + "ALogLogcatWriter",
+                    "dropped " + (dropped - mDropReported) + " messages, queue full");
+            mDropReported = dropped;
+        }
+    }
+
+    /**
+     * Write text as one or more logd entries, each at most MAX_PAYLOAD UTF-8 bytes,
+     * split at the last line break which fits.
+     */
+    private static void write(int level, String tag, CharSequence text) {
+        final int len = text.length();
+        int start = 0;
+        while (start < len) {
+            int end = len;
+            if (ALogUtf8.length(text, start, end) > MAX_PAYLOAD) {
+                end = fitEnd(text, start);
+                int nl = lastNewline(text, start, end);
+                if (nl > start) {
+                    end = nl;
+                }
+            }
+            Log.println(level, tag, text.subSequence(start, end).toString());
+            start = end;
+            if (start < len && text.charAt(start) == '\n') {
+                start++;
+            }
+        }
+    }
+
+    /**
+     * @return End of longest prefix from <b>start</b> encoding to at most MAX_PAYLOAD bytes.
+     */
+    private static int fitEnd(CharSequence text, int start) {
+        int bytes = 0;
+        int idx = start;
+        while (idx < text.length()) {
+            char chr = text.charAt(idx);
+            int size = (chr < 0x80) ? 1 : (chr < 0x800 || Character.isSurrogate(chr)) ? 2 : 3;
+            if (bytes + size > MAX_PAYLOAD) {
+                break;
+            }
+            bytes += size;
+            idx++;
+        }
+        return Math.max(start + 1, ALogUtf8.splitAt(text, start, idx));
+    }
+
+    private static int lastNewline(CharSequence text, int start, int end) {
+        for (int idx = end - 1; idx > start; idx--) {
+            if (text.charAt(idx) == '\n') {
+                return idx;
+            }
+        }
+        return -1;
+    }
+}
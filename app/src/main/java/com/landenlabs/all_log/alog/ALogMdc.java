@@ -0,0 +1,278 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Mapped diagnostic context, per thread key/value pairs (ex request or session id)
+ * attached to every log row written by that thread.
+ * <p>
+ * Context is an immutable {@link Snapshot}, put and remove swap in a modified copy, so a
+ * log call only captures a reference and never copies. Disabled levels are filtered by
+ * ALog before any printer runs and never touch the context. Printers render the snapshot
+ * when the row is written, ALogFileWriter and ALogLogcatWriter on their writer thread,
+ * rendered text is cached per snapshot.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *     try (ALogMdc.Scope scope = ALogMdc.with("req", requestId)) { <br>
+ *     &nbsp;  ALog.w.tagMsg(this, "fetch ", url);    // ... W Net#T12 - [req=42] fetch http://... <br>
+ *     &nbsp;  executor.execute(ALogMdc.wrap(task));  // task logs with req=42 <br>
+ *     }
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogMdc {
+
+    private static final ThreadLocal<Snapshot> CURRENT = new ThreadLocal<>();
+
+    private ALogMdc() {
+    }
+
+    /**
+     * Immutable set of context pairs in insertion order.
+     */
+    public static final class Snapshot {
+        private final String[] keys;
+        private final String[] values;
+        private String rendered;    // Lazy, racing renders produce equal strings.
+
+        Snapshot(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        public String getKey(int idx) {
+            return keys[idx];
+        }
+
+        public String getValue(int idx) {
+            return values[idx];
+        }
+
+        @Nullable
+        public String get(String key) {
+            int idx = indexOf(key);
+            return (idx >= 0) ? values[idx] : null;
+        }
+
+        int indexOf(String key) {
+            for (int idx = 0; idx < keys.length; idx++) {
+                if (keys[idx].equals(key)) {
+                    return idx;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return "[key=value key2=value2]", rendered on first call.
+         */
+        @Override
+        public String toString() {
+            String str = rendered;
+            if (str == null) {
+                StringBuilder sb = new StringBuilder(keys.length * 16).append('[');
+                for (int idx = 0; idx < keys.length; idx++) {
+                    if (idx != 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(keys[idx]).append('=').append(values[idx]);
+                }
+                str = rendered = sb.append(']').toString();
+            }
+            return str;
+        }
+    }
+
+    /**
+     * Restores context which was current when opened, see {@link #with(String, String)}.
+     */
+    public static final class Scope implements Closeable {
+        private final Snapshot previous;
+
+        Scope(@Nullable Snapshot previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * @return Calling thread's context, null if empty.
+     */
+    @Nullable
+    public static Snapshot current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Replace calling thread's context.
+     *
+     * @return Previous context, pass back to restore it.
+     */
+    @Nullable
+    public static Snapshot set(@Nullable Snapshot snapshot) {
+        Snapshot previous = CURRENT.get();
+        CURRENT.set(snapshot);
+        return previous;
+    }
+
+    @Nullable
+    public static String get(String key) {
+        Snapshot snapshot = CURRENT.get();
+        return (snapshot != null) ? snapshot.get(key) : null;
+    }
+
+    /**
+     * Add or replace <b>key</b>, null <b>value</b> removes it.
+     */
+    public static void put(String key, @Nullable String value) {
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        Snapshot snapshot = CURRENT.get();
+        if (snapshot == null) {
+            CURRENT.set(new Snapshot(new String[] { key }, new String[] { value }));
+            return;
+        }
+        int idx = snapshot.indexOf(key);
+        if (idx >= 0) {
+            if (!value.equals(snapshot.values[idx])) {
+                String[] values = snapshot.values.clone();
+                values[idx] = value;
+                CURRENT.set(new Snapshot(snapshot.keys, values));
+            }
+            return;
+        }
+        int size = snapshot.keys.length;
+        String[] keys = new String[size + 1];
+        String[] values = new String[size + 1];
+        System.arraycopy(snapshot.keys, 0, keys, 0, size);
+        System.arraycopy(snapshot.values, 0, values, 0, size);
+        keys[size] = key;
+        values[size] = value;
+        CURRENT.set(new Snapshot(keys, values));
+    }
+
+    public static void remove(String key) {
+        Snapshot snapshot = CURRENT.get();
+        int idx = (snapshot != null) ? snapshot.indexOf(key) : -1;
+        if (idx < 0) {
+            return;
+        }
+        int size = snapshot.keys.length - 1;
+        if (size == 0) {
+            CURRENT.set(null);
+            return;
+        }
+        String[] keys = new String[size];
+        String[] values = new String[size];
+        System.arraycopy(snapshot.keys, 0, keys, 0, idx);
+        System.arraycopy(snapshot.values, 0, values, 0, idx);
+        System.arraycopy(snapshot.keys, idx + 1, keys, idx, size - idx);
+        System.arraycopy(snapshot.values, idx + 1, values, idx, size - idx);
+        CURRENT.set(new Snapshot(keys, values));
+    }
+
+    public static void clear() {
+        CURRENT.set(null);
+    }
+
+    /**
+     * Put <b>key</b> until returned scope is closed, then restore previous context.
+     */
+    public static Scope with(String key, @Nullable String value) {
+        Scope scope = new Scope(CURRENT.get());
+        put(key, value);
+        return scope;
+    }
+
+    // =============================================================================================
+    // Propagation across threads, context captured when wrapped and restored after running.
+    // =============================================================================================
+
+    /**
+     * @return Runnable which runs <b>task</b> with the caller's current context.
+     */
+    public static Runnable wrap(final Runnable task) {
+        final Snapshot captured = CURRENT.get();
+        return new Runnable() {
+            @Override
+            public void run() {
+                Snapshot previous = set(captured);
+                try {
+                    task.run();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return Callable which calls <b>task</b> with the caller's current context.
+     */
+    public static <T> Callable<T> wrapCallable(final Callable<T> task) {
+        final Snapshot captured = CURRENT.get();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                Snapshot previous = set(captured);
+                try {
+                    return task.call();
+                } finally {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return Executor which runs each task with the context current when it was submitted.
+     */
+    public static Executor wrap(final Executor executor) {
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                executor.execute(wrap(command));
+            }
+        };
+    }
+}
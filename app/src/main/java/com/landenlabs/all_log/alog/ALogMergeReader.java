@@ -0,0 +1,416 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streaming k-way merge of log files into one timestamp ordered stream.
+ * <p>
+ * Each source is an ordered list of files (ex a segment's gzip archive then its live file)
+ * read one line at a time, so memory is one pending line per source regardless of file size.
+ * Rows are ordered by their leading timestamp, ties by source order. Both formats are parsed
+ * in place without allocation:
+ * <ul>
+ *   <li>ALogFileWriter and "logcat -v year": <b>yyyy-MM-dd HH:mm:ss.SSS</b>/L tag - msg
+ *   <li>"logcat -v threadtime" or "-v time": <b>MM-dd HH:mm:ss.SSS</b> pid tid L tag: msg,
+ *   year taken from {@link #setYear(int)}, defaults to the latest year not in the future.
+ * </ul>
+ * Lines without a timestamp (stack traces, multi-line messages, logcat "--------- beginning
+ * of" banners) stay with the row before them.
+ * <p>
+ * Example, read every process's segment of the default log:
+ * <br><font color="green">
+ *     try (ALogMergeReader reader = ALogMergeReader.open(dir, "filelog.txt")) { <br>
+ *     &nbsp;  String line; <br>
+ *     &nbsp;  while ((line = reader.readLine()) != null) { <br>
+ *     &nbsp;&nbsp;    show(reader.getSource(), line); <br>
+ *     &nbsp;  } <br>
+ *     }
+ * </font>
+ *
+ * <p>
+ * Command line, merge ALog files and logcat captures (plain or .gz) to stdout, each line
+ * prefixed with its source:
+ * <pre>
+ *   java -cp classes com.landenlabs.all_log.alog.ALogMergeReader app=filelog.txt.gz app=filelog.txt logcat.txt
+ * </pre>
+ *
+ * @author Dennis Lang
+ * @see ALogFileWriter#segmentName
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ALogMergeReader implements Closeable {
+
+    /** Time of lines without a timestamp. */
+    static final long NO_TIME = Long.MIN_VALUE;
+    private static final long DAY_MILLI = 24 * 60 * 60 * 1000L;
+
+    private static final class Cursor {
+        final String label;
+        final int order;
+        final BufferedReader[] readers;
+        int fileIdx;
+        String line;
+        long time;              // Local time of line, milliseconds since 1970-01-01 00:00.
+
+        Cursor(String label, int order, BufferedReader[] readers) {
+            this.label = label;
+            this.order = order;
+            this.readers = readers;
+        }
+
+        /**
+         * Load next line into {@link #line}, null once all files are read.
+         */
+        void advance() throws IOException {
+            line = null;
+            while (fileIdx < readers.length) {
+                line = readers[fileIdx].readLine();
+                if (line != null) {
+                    return;
+                }
+                readers[fileIdx++].close();
+            }
+        }
+
+        void close() {
+            for (; fileIdx < readers.length; fileIdx++) {
+                try {
+                    readers[fileIdx].close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    private static final Comparator<Cursor> ORDER = new Comparator<Cursor>() {
+        @Override
+        public int compare(Cursor lhs, Cursor rhs) {
+            if (lhs.time != rhs.time) {
+                return (lhs.time < rhs.time) ? -1 : 1;
+            }
+            return Integer.compare(lhs.order, rhs.order);
+        }
+    };
+
+    private final PriorityQueue<Cursor> mHeap = new PriorityQueue<>(8, ORDER);
+    private final ArrayList<Cursor> mCursors = new ArrayList<>();
+    private Cursor mCurrent;    // Source of last line, continuation lines follow from it.
+    private String mSource;
+    private int mYear;          // Year of timestamps without one, 0 for latest not in future.
+    private final long mNowLocal;
+
+    public ALogMergeReader() {
+        long now = System.currentTimeMillis();
+        mNowLocal = now + TimeZone.getDefault().getOffset(now);
+    }
+
+    /**
+     * Set year of logcat timestamps which have no year, ex captures from an earlier year.
+     */
+    public void setYear(int year) {
+        mYear = year;
+    }
+
+    /**
+     * Open every segment of <b>logFileName</b> in <b>dir</b>, each process's archive
+     * followed by its live file. Files are opened under the directory's shared lock so a
+     * concurrent rotation is seen either before or after, never half done.
+     */
+    public static ALogMergeReader open(File dir, String logFileName) throws IOException {
+        // Label, {archive, live}
+        TreeMap<String, File[]> segments = new TreeMap<>();
+        ALogMergeReader reader = new ALogMergeReader();
+        synchronized (ALogFileWriter.DIR_LOCK) {
+            FileLock lock = ALogFileWriter.lockDir(dir, true);
+            try {
+                String[] names = dir.list();
+                if (names != null) {
+                    for (String name : names) {
+                        boolean archive = name.endsWith(".gz");
+                        String base = archive ? name.substring(0, name.length() - 3) : name;
+                        String label = segmentLabel(base, logFileName);
+                        if (label != null) {
+                            File[] files = segments.get(label);
+                            if (files == null) {
+                                files = new File[2];
+                                segments.put(label, files);
+                            }
+                            files[archive ? 0 : 1] = new File(dir, name);
+                        }
+                    }
+                }
+                for (String label : segments.keySet()) {
+                    reader.addSource(label, segments.get(label));
+                }
+            } catch (IOException ex) {
+                reader.close();
+                throw ex;
+            } finally {
+                ALogFileWriter.unlockDir(lock);
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * @return Segment label, ex "com.landenlabs.all_log_remote.1250", if <b>name</b> is
+     * <b>logFileName</b> or a segment of it, else null.
+     */
+    @Nullable
+    private static String segmentLabel(String name, String logFileName) {
+        if (name.equals(logFileName)) {
+            return logFileName;
+        }
+        if (name.length() > logFileName.length() + 1 && name.endsWith(logFileName)
+                && name.charAt(name.length() - logFileName.length() - 1) == '.') {
+            return name.substring(0, name.length() - logFileName.length() - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Add source read from <b>files</b> in order, null or missing files are skipped.
+     * Files ending in ".gz" are decompressed while read.
+     */
+    public ALogMergeReader addSource(String label, File... files) throws IOException {
+        ArrayList<BufferedReader> readers = new ArrayList<>(files.length);
+        try {
+            for (File file : files) {
+                if (file != null && file.exists()) {
+                    readers.add(openReader(file));
+                }
+            }
+        } catch (IOException ex) {
+            for (BufferedReader opened : readers) {
+                opened.close();
+            }
+            throw ex;
+        }
+        Cursor cursor = new Cursor(label, mCursors.size(), readers.toArray(new BufferedReader[0]));
+        mCursors.add(cursor);
+        cursor.advance();
+        if (cursor.line != null) {
+            cursor.time = parseTime(cursor.line);
+            mHeap.add(cursor);
+        }
+        return this;
+    }
+
+    private static BufferedReader openReader(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            if (file.getName().endsWith(".gz")) {
+                in = new GZIPInputStream(in, 8192);
+            }
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+        return new BufferedReader(new InputStreamReader(in, "UTF-8"), 8192);
+    }
+
+    /**
+     * @return Next line of merged stream or null at end of all sources.
+     */
+    @WorkerThread
+    @Nullable
+    public String readLine() throws IOException {
+        Cursor cursor = mCurrent;
+        if (cursor != null) {
+            mCurrent = null;
+            cursor.advance();
+            if (cursor.line != null) {
+                long time = parseTime(cursor.line);
+                if (time == NO_TIME) {
+                    return take(cursor);
+                }
+                cursor.time = time;
+                mHeap.add(cursor);
+            }
+        }
+        cursor = mHeap.poll();
+        return (cursor != null) ? take(cursor) : null;
+    }
+
+    private String take(Cursor cursor) {
+        mCurrent = cursor;
+        mSource = cursor.label;
+        return cursor.line;
+    }
+
+    /**
+     * @return Label of source of last line returned by {@link #readLine()}.
+     */
+    public String getSource() {
+        return mSource;
+    }
+
+    /**
+     * Write remaining merged lines to <b>out</b>, each as "[source] line".
+     *
+     * @return Lines written.
+     */
+    @WorkerThread
+    public long mergeTo(Appendable out) throws IOException {
+        long lines = 0;
+        String line;
+        while ((line = readLine()) != null) {
+            out.append('[').append(mSource).append("] ").append(line).append('\n');
+            lines++;
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() {
+        for (Cursor cursor : mCursors) {
+            cursor.close();
+        }
+        mHeap.clear();
+        mCurrent = null;
+    }
+
+    /**
+     * Parse leading timestamp of <b>line</b> in either ALog or logcat format.
+     *
+     * @return Local time, milliseconds since 1970-01-01 00:00, or {@link #NO_TIME}.
+     */
+    long parseTime(String line) {
+        final int len = line.length();
+        int year;
+        int pos;
+        if (len >= 23 && line.charAt(4) == '-' && line.charAt(7) == '-' && line.charAt(10) == ' ') {
+            year = digits(line, 0, 4);
+            pos = 5;
+        } else if (len >= 18 && line.charAt(2) == '-' && line.charAt(5) == ' ') {
+            year = (mYear != 0) ? mYear : -1;
+            pos = 0;
+        } else {
+            return NO_TIME;
+        }
+        // pos at "MM-dd HH:mm:ss.SSS"
+        if (line.charAt(pos + 8) != ':' || line.charAt(pos + 11) != ':' || line.charAt(pos + 14) != '.') {
+            return NO_TIME;
+        }
+        int month = digits(line, pos, 2);
+        int day = digits(line, pos + 3, 2);
+        int hour = digits(line, pos + 6, 2);
+        int minute = digits(line, pos + 9, 2);
+        int second = digits(line, pos + 12, 2);
+        int milli = digits(line, pos + 15, 3);
+        if ((month | day | hour | minute | second | milli) < 0 || year == 0) {
+            return NO_TIME;
+        }
+        long dayMilli = ((hour * 60L + minute) * 60 + second) * 1000 + milli;
+        if (year > 0) {
+            return daysFromCivil(year, month, day) * DAY_MILLI + dayMilli;
+        }
+        // No year, latest year which is not in the future.
+        int thisYear = civilYear(mNowLocal / DAY_MILLI);
+        long time = daysFromCivil(thisYear, month, day) * DAY_MILLI + dayMilli;
+        return (time > mNowLocal + DAY_MILLI)
+                ? daysFromCivil(thisYear - 1, month, day) * DAY_MILLI + dayMilli : time;
+    }
+
+    /**
+     * @return Decimal value of <b>count</b> digits at <b>pos</b>, -1 if any is not a digit.
+     */
+    private static int digits(String str, int pos, int count) {
+        int value = 0;
+        for (int idx = pos; idx < pos + count; idx++) {
+            int digit = str.charAt(idx) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return Days since 1970-01-01 of proleptic Gregorian date.
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        year -= (month <= 2) ? 1 : 0;
+        long era = year / 400;          // Years and days after 0000-03-01 only.
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * @return Year of <b>days</b> since 1970-01-01.
+     */
+    static int civilYear(long days) {
+        days += 719468;
+        long era = days / 146097;
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIdx = (5 * dayOfYear + 2) / 153;
+        return (int) (yearOfEra + era * 400 + ((monthIdx >= 10) ? 1 : 0));
+    }
+
+    /**
+     * Merge files named on command line to stdout. Argument "label=path" sets the
+     * source label, default is the file name without ".gz".
+     */
+    public static void main(String[] args) throws IOException {
+        ALogMergeReader reader = new ALogMergeReader();
+        try {
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                File file = new File(arg.substring(eq + 1));
+                String label = (eq > 0) ? arg.substring(0, eq) : file.getName().replaceFirst("\\.gz$", "");
+                reader.addSource(label, file);
+            }
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, "UTF-8"), 65536);
+            reader.mergeTo(out);
+            out.flush();
+        } finally {
+            reader.close();
+        }
+    }
+}
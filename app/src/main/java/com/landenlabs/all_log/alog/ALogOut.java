@@ -36,6 +36,24 @@ public class ALogOut {
 
     public interface LogPrinter {
         void println(int priority, String tag, String msg);
+
+        /**
+         * Print message and Throwable's stack trace. Printers which defer output override
+         * this to render the trace on their writer thread.
+         */
+        default void println(int priority, String tag, String msg, Throwable tr) {
+            println(priority, tag, msg + "\n" + Log.getStackTraceString(tr));
+        }
+
+        /**
+         * Checked by the logging call on entry, before its message is built. A printer
+         * which currently drops <b>priority</b> (ex: shedding load) returns false, and
+         * counts the record as dropped, so nothing is formatted for it.
+         */
+        default boolean accepts(int priority) {
+            return true;
+        }
+
         void open(Context context);
         int maxTagLen();
         int MAX_TAG_LEN = 100;
@@ -49,8 +67,15 @@ public class ALogOut {
         // no tag limit of concern after this API level.
         static final int LOG_TAG_LEN = (Build.VERSION.SDK_INT >= 24) ? 23 : MAX_TAG_LEN;
 
+        // Shared by all SysLog printers, repeated traces are only printed once to logcat.
+        static final ALogTrace TRACE = new ALogTrace();
+
         public void println(int priority, String tag, String msg) {
-            Log.println(priority, tag, msg);
+            ALogMdc.Snapshot mdc = ALogMdc.current();
+            Log.println(priority, tag, (mdc != null) ? mdc + " " + msg : msg);
+        }
+        public void println(int priority, String tag, String msg, Throwable tr) {
+            println(priority, tag, msg + "\n" + TRACE.render(tr));
         }
         public void open(Context context) {
         }
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.util.Comparator;
+
+/**
+ * Single log event passed from producer threads to a log writer.
+ * <p>
+ * Presentation (timestamp formatting, row layout) is delayed until the writer thread
+ * consumes the record.
+ *
+ * @author Dennis Lang
+ */
+final class ALogRecord {
+    final long timeMilli;   // wall clock, presented in output.
+    final long timeNano;    // monotonic, used to merge records into global order.
+    final long threadId;
+    final long seq;         // per producer sequence, breaks ties of equal timeNano.
+    final int level;
+    final String tag;
+    final String msg;
+    final Throwable thrown; // Optional, stack trace rendered by writer.
+    final ALogMdc.Snapshot mdc; // Producer's context, null if empty. Rendered by writer.
+
+    ALogRecord(int level, String tag, String msg, long threadId, long seq) {
+        this(level, tag, msg, null, threadId, seq);
+    }
+
+    ALogRecord(int level, String tag, String msg, Throwable thrown, long threadId, long seq) {
+        this.timeMilli = System.currentTimeMillis();
+        this.timeNano = System.nanoTime();
+        this.threadId = threadId;
+        this.seq = seq;
+        this.level = level;
+        this.tag = tag;
+        this.msg = msg;
+        this.thrown = thrown;
+        this.mdc = ALogMdc.current();
+    }
+
+    /**
+     * Global order by timestamp, then producer thread and its sequence.
+     */
+    static final Comparator<ALogRecord> ORDER = new Comparator<ALogRecord>() {
+        @Override
+        public int compare(ALogRecord lhs, ALogRecord rhs) {
+            if (lhs.timeNano != rhs.timeNano) {
+                return (lhs.timeNano < rhs.timeNano) ? -1 : 1;
+            }
+            if (lhs.threadId != rhs.threadId) {
+                return (lhs.threadId < rhs.threadId) ? -1 : 1;
+            }
+            return Long.compare(lhs.seq, rhs.seq);
+        }
+    };
+}
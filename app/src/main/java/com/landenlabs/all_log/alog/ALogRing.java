@@ -0,0 +1,126 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer ring of log records.
+ * <p>
+ * Owned by one producer thread, drained by the log writer thread. No locks, producer and
+ * consumer only share the head and tail counters.
+ *
+ * @author Dennis Lang
+ */
+final class ALogRing {
+    private final ALogRecord[] mBuffer;
+    private final int mMask;
+    private final AtomicLong mHead = new AtomicLong();  // Next slot to consume, written by consumer.
+    private final AtomicLong mTail = new AtomicLong();  // Next slot to fill, written by producer.
+    private final WeakReference<Thread> mOwner;
+    final long ownerId;
+    private long mSeq;                                   // Owner thread only.
+
+    /**
+     * @param capacity Maximum pending records, rounded up to power of 2.
+     */
+    ALogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mBuffer = new ALogRecord[size];
+        mMask = size - 1;
+        Thread owner = Thread.currentThread();
+        mOwner = new WeakReference<>(owner);
+        ownerId = owner.getId();
+    }
+
+    /**
+     * Producer (owner thread) - next record sequence number.
+     */
+    long nextSeq() {
+        return mSeq++;
+    }
+
+    /**
+     * Producer (owner thread) - add record.
+     *
+     * @return False if ring is full and record dropped.
+     */
+    boolean offer(ALogRecord rec) {
+        final long tail = mTail.get();
+        if (tail - mHead.get() >= mBuffer.length) {
+            return false;
+        }
+        mBuffer[(int) tail & mMask] = rec;
+        // Full fence (not lazySet), consumer may be about to park.
+        mTail.set(tail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer - oldest pending record, left in ring.
+     *
+     * @return Record or null if empty.
+     */
+    ALogRecord peek() {
+        final long head = mHead.get();
+        return (head < mTail.get()) ? mBuffer[(int) head & mMask] : null;
+    }
+
+    /**
+     * Consumer - remove oldest pending record.
+     *
+     * @return Record or null if empty.
+     */
+    ALogRecord poll() {
+        final long head = mHead.get();
+        if (head >= mTail.get()) {
+            return null;
+        }
+        final int idx = (int) head & mMask;
+        ALogRecord rec = mBuffer[idx];
+        mBuffer[idx] = null;
+        mHead.lazySet(head + 1);
+        return rec;
+    }
+
+    boolean isEmpty() {
+        return mHead.get() == mTail.get();
+    }
+
+    /**
+     * @return Percent of capacity pending, approximate while producer is adding.
+     */
+    int fillPercent() {
+        return (int) ((mTail.get() - mHead.get()) * 100 / mBuffer.length);
+    }
+
+    /**
+     * @return False once owning thread has terminated, ring can be released after last drain.
+     */
+    boolean isOwnerAlive() {
+        Thread owner = mOwner.get();
+        return owner != null && owner.isAlive();
+    }
+}
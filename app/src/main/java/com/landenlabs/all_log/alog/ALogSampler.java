@@ -0,0 +1,169 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.net.TrafficStats;
+import android.os.Debug;
+import android.os.Process;
+
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Periodic background sampler of process resources, written as compact log rows.
+ * <p>
+ * Runs on the shared ALogTimer thread and only reads cheap counters (no forced GC,
+ * no binder calls), so memory trends cost nearly nothing on foreground threads.
+ * <p>
+ * Example row:
+ * <pre>
+ *   heap=12.4/256.0MB native=8.1MB gc=42(+3) gcMs=+18 rx=+1.2KB tx=+310B
+ * </pre>
+ * Example:
+ * <br><font color="green">
+ *   ALogSampler.start(AppLog.LOGFILE, 30 * 1000);
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogSampler {
+    private static final String TAG = "ALogSampler";
+
+    private static ScheduledFuture<?> sTimer;
+    private static volatile ALogTraceEventWriter sTraceWriter;
+
+    // Previous sample, used to present deltas. Timer thread only.
+    private static long sLastGcCount = -1;
+    private static long sLastGcMilli;
+    private static long sLastRx = -1;
+    private static long sLastTx;
+
+    private ALogSampler() {
+    }
+
+    /**
+     * Start periodic sampling, replaces any previous sampler.
+     *
+     * @param channel     Channel rows are written to at INFO level.
+     * @param periodMilli Sample interval.
+     */
+    public static synchronized void start(final AppLog channel, long periodMilli) {
+        stop();
+        sTimer = ALogScheduler.schedulePeriodic(new Runnable() {
+            @Override
+            public void run() {
+                if (ALog.isInfo()) {
+                    // Take the channel's admission first, even if not printing, so it
+                    // can not leak into the next log call on this shared timer thread.
+                    ALog log = channel.i();
+                    final ALogOut.LogPrinter prn = log.enter();
+                    if (prn != null) {
+                        log.print(prn, ALog.tagStr(TAG), sample());
+                    }
+                }
+            }
+        }, periodMilli);
+    }
+
+    public static synchronized void stop() {
+        if (sTimer != null) {
+            sTimer.cancel(false);
+            sTimer = null;
+        }
+    }
+
+    /**
+     * Also write each sample as counter tracks to a trace event file, null to stop.
+     */
+    public static void setTraceWriter(ALogTraceEventWriter tracer) {
+        sTraceWriter = tracer;
+    }
+
+    /**
+     * @return One compact sample row, deltas relative to previous call.
+     */
+    public static synchronized String sample() {
+        Runtime runtime = Runtime.getRuntime();
+        long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        long nativeUsed = Debug.getNativeHeapAllocatedSize();
+        long gcCount = parseStat(Debug.getRuntimeStat("art.gc.gc-count"));
+        long gcMilli = parseStat(Debug.getRuntimeStat("art.gc.gc-time"));
+        int uid = Process.myUid();
+        long rx = TrafficStats.getUidRxBytes(uid);
+        long tx = TrafficStats.getUidTxBytes(uid);
+
+        StringBuilder sb = new StringBuilder(80);
+        sb.append("heap=").append(mb(heapUsed)).append('/').append(mb(runtime.maxMemory())).append("MB");
+        sb.append(" native=").append(mb(nativeUsed)).append("MB");
+        if (gcCount >= 0) {
+            sb.append(" gc=").append(gcCount);
+            if (sLastGcCount >= 0) {
+                sb.append("(+").append(gcCount - sLastGcCount).append(")");
+                sb.append(" gcMs=+").append(gcMilli - sLastGcMilli);
+            }
+        }
+        if (rx >= 0 && sLastRx >= 0) {
+            sb.append(" rx=+").append(bytes(rx - sLastRx));
+            sb.append(" tx=+").append(bytes(tx - sLastTx));
+        }
+
+        ALogTraceEventWriter tracer = sTraceWriter;
+        if (tracer != null) {
+            tracer.counter("heap", heapUsed);
+            tracer.counter("native", nativeUsed);
+            if (gcCount >= 0) {
+                tracer.counter("gc", gcCount);
+            }
+        }
+
+        sLastGcCount = gcCount;
+        sLastGcMilli = gcMilli;
+        sLastRx = rx;
+        sLastTx = tx;
+        return sb.toString();
+    }
+
+    private static long parseStat(String value) {
+        try {
+            return (value == null) ? -1 : Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static String mb(long bytes) {
+        return String.format(Locale.US, "%.1f", bytes / (1024.0 * 1024.0));
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.US, "%.1fKB", bytes / 1024.0);
+        }
+        return String.format(Locale.US, "%.1fMB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import androidx.annotation.WorkerThread;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs log sink i/o on a shared executor.
+ * <p>
+ * Many sinks (ex: several {@link ALogFileWriter}) are multiplexed on one executor. A sink is
+ * only scheduled when it has pending records and never runs concurrently with itself. Each
+ * run writes at most {@link #setBatchSize(int) batchSize} records and then yields, so a busy
+ * sink can not starve the others.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   // Use application's own i/o executor for all file writers.
+ *   ALogScheduler.setDefault(new ALogScheduler(appIoExecutor));
+ *   ...
+ *   ALogScheduler.getDefault().shutdown(1000);  // Flush and close all sinks.
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogScheduler {
+    private static final String TAG = "ALogScheduler";
+
+    /**
+     * Log output target which buffers records and writes them when scheduled.
+     */
+    public interface Sink {
+        /**
+         * Write up to <b>maxRecords</b> pending records.
+         *
+         * @return True if more records are pending.
+         */
+        @WorkerThread
+        boolean drain(int maxRecords);
+
+        boolean hasPending();
+
+        /**
+         * Release resources, called once from {@link #shutdown(long)} after final drain.
+         */
+        void close();
+    }
+
+    /**
+     * Scheduling handle of one registered sink.
+     */
+    public final class Task implements Runnable {
+        final Sink sink;
+        private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+        Task(Sink sink) {
+            this.sink = sink;
+        }
+
+        /**
+         * Called by producer after queueing a record, schedule sink if not already scheduled.
+         */
+        public void signal() {
+            schedule();
+        }
+
+        /**
+         * @return False if not scheduled, after shutdown or rejected by the executor.
+         */
+        boolean schedule() {
+            if (!mScheduled.get()) {
+                if (mShutdown) {
+                    return false;
+                }
+                if (mScheduled.compareAndSet(false, true)) {
+                    try {
+                        mExecutor.execute(this);
+                    } catch (RejectedExecutionException ex) {
+                        mScheduled.set(false);
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @WorkerThread
+        @Override
+        public void run() {
+            boolean more = false;
+            try {
+                more = sink.drain(mBatchSize);
+            } catch (Throwable ex) {
+                // Keep sink scheduled for future records, a bad batch (even an Error such as
+                // OutOfMemoryError while encoding) must not kill log output.
+                ALog.e.tagMsg(TAG, "drain failed ", sink, " ", ex);
+            } finally {
+                mScheduled.set(false);
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+            // Re-check after clearing flag, a producer may have queued and seen us scheduled.
+            if (more || sink.hasPending()) {
+                signal();
+            }
+        }
+
+        /**
+         * Wait for a scheduled or running drain to finish.
+         *
+         * @return False if still scheduled at <b>endMilli</b>.
+         */
+        synchronized boolean awaitIdle(long endMilli) throws InterruptedException {
+            while (mScheduled.get()) {
+                long waitMilli = endMilli - System.currentTimeMillis();
+                if (waitMilli <= 0) {
+                    return false;
+                }
+                wait(waitMilli);
+            }
+            return true;
+        }
+
+        boolean isIdle() {
+            return !mScheduled.get() && !sink.hasPending();
+        }
+    }
+
+    private static volatile ALogScheduler sDefault;
+    private static ScheduledThreadPoolExecutor sTimer;
+
+    private final Executor mExecutor;
+    private final boolean mOwnsExecutor;
+    private final CopyOnWriteArrayList<Task> mTasks = new CopyOnWriteArrayList<>();
+    private volatile int mBatchSize = 256;
+    private volatile boolean mShutdown;
+
+    /**
+     * Create scheduler running sinks on the caller provided <b>executor</b>.
+     * Executor is not shutdown by {@link #shutdown(long)}.
+     */
+    public ALogScheduler(Executor executor) {
+        mExecutor = executor;
+        mOwnsExecutor = false;
+    }
+
+    private ALogScheduler() {
+        mExecutor = newIoExecutor();
+        mOwnsExecutor = true;
+    }
+
+    /**
+     * @return Shared scheduler, created on first use with {@link #newIoExecutor()}.
+     */
+    public static ALogScheduler getDefault() {
+        ALogScheduler scheduler = sDefault;
+        if (scheduler == null) {
+            synchronized (ALogScheduler.class) {
+                if (sDefault == null) {
+                    sDefault = new ALogScheduler();
+                }
+                scheduler = sDefault;
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Replace shared scheduler used by sinks registered after this call.
+     */
+    public static void setDefault(ALogScheduler scheduler) {
+        sDefault = scheduler;
+    }
+
+    /**
+     * Default i/o executor, a single low priority daemon thread. Not virtual threads, sinks
+     * hold monitors during file i/o which would pin the carrier thread.
+     */
+    public static Executor newIoExecutor() {
+        ThreadFactory factory = new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ALogIO");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        };
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), factory);
+    }
+
+    /**
+     * Run <b>task</b> every <b>periodMilli</b> on the shared low priority log timer thread.
+     * Used for periodic log work, ex: config reload, sampling, summaries.
+     * Task must be short, long i/o belongs on a {@link Sink}.
+     *
+     * @return Future to cancel the task.
+     */
+    public static synchronized ScheduledFuture<?> schedulePeriodic(final Runnable task, long periodMilli) {
+        if (sTimer == null) {
+            sTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ALogTimer");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }
+            });
+            sTimer.setRemoveOnCancelPolicy(true);
+        }
+        return sTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    // Keep periodic task alive, an exception would cancel all future runs.
+                    ALog.w.tagMsg(TAG, "periodic task failed ", ex);
+                }
+            }
+        }, periodMilli, periodMilli, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Set maximum records written by one sink before yielding to other sinks.
+     */
+    public void setBatchSize(int batchSize) {
+        mBatchSize = Math.max(1, batchSize);
+    }
+
+    public Task register(Sink sink) {
+        Task task = new Task(sink);
+        mTasks.add(task);
+        return task;
+    }
+
+    public void unregister(Task task) {
+        mTasks.remove(task);
+    }
+
+    /**
+     * Run one off log i/o <b>task</b> on this scheduler's executor, ex: opening a file.
+     *
+     * @return False if not accepted, after shutdown or rejected by the executor.
+     */
+    public boolean execute(Runnable task) {
+        if (mShutdown) {
+            return false;
+        }
+        try {
+            mExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Wait until all registered sinks have written their pending records.
+     *
+     * @return False if timed out.
+     */
+    public boolean flush(long timeoutMilli) {
+        final long endMilli = System.currentTimeMillis() + timeoutMilli;
+        for (Task task : mTasks) {
+            task.signal();
+        }
+        try {
+            for (Task task : mTasks) {
+                // Each pass waits for a drain to finish, woken by the drain not polled.
+                while (!task.isIdle()) {
+                    if (System.currentTimeMillis() >= endMilli
+                            || !task.schedule() || !task.awaitIdle(endMilli)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Flush and close all registered sinks. Records queued after shutdown are not written.
+     *
+     * @return False if flush timed out, sinks are closed regardless.
+     */
+    public boolean shutdown(long timeoutMilli) {
+        final long endMilli = System.currentTimeMillis() + timeoutMilli;
+        boolean flushed = flush(timeoutMilli);
+        mShutdown = true;
+        try {
+            // Wait for any in-flight drain, close must not race with it.
+            if (mOwnsExecutor && mExecutor instanceof ExecutorService) {
+                ExecutorService executor = (ExecutorService) mExecutor;
+                executor.shutdown();
+                executor.awaitTermination(Math.max(0, endMilli - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+            }
+            for (Task task : mTasks) {
+                task.awaitIdle(endMilli);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (Task task : mTasks) {
+            task.sink.close();
+        }
+        mTasks.clear();
+        if (sDefault == this) {
+            sDefault = null;
+        }
+        return flushed;
+    }
+
+    public boolean isShutdown() {
+        return mShutdown;
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Log call site with its own runtime enable flag, similar to Linux dynamic debug.
+ * <p>
+ * A site registers itself once, file and line taken from the stack when created, and logs
+ * when its flag is set or its level passes {@link ALog#getMinLevel()}. A single noisy verbose
+ * site can be turned on in production without enabling verbose everywhere. The hot path
+ * reads the volatile flag then the level, the same as a plain ALog call.
+ * <p>
+ * Sites are toggled by query, all terms must match:
+ * <ul>
+ *   <li><b>file:</b>glob - source file name, ex file:Net*.java
+ *   <li><b>line:</b>n or line:n-m
+ *   <li><b>tag:</b>glob
+ *   <li><b>level:</b>V, D, I, W, E or A
+ *   <li>glob - matched against "file:line" or tag
+ * </ul>
+ * Queries are kept as rules and applied in order to sites registered later, so a site
+ * can be enabled before its class is loaded. See {@link ALogSiteReceiver} to toggle
+ * from adb and "site.enable" in {@link ALogConfig}, which replaces only its own rules
+ * on reload, see {@link #setRules(String, List, List)}.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *     private static final ALogSite SITE_RX = ALogSite.at(ALog.v, "Net"); <br>
+ *     ... <br>
+ *     SITE_RX.msg("read ", len, " bytes"); <br>
+ *     ALogSite.enable("file:NetClient.java line:120-140");
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogSite {
+
+    public final ALog log;
+    public final String tag;
+    public final String file;
+    public final int line;
+    /** Forced on, independent of {@link ALog#getMinLevel()}. */
+    public volatile boolean enabled;
+
+    private static final CopyOnWriteArrayList<ALogSite> SITES = new CopyOnWriteArrayList<>();
+    private static final ArrayList<Rule> RULES = new ArrayList<>();     // Guarded by RULES.
+
+    private static final class Rule {
+        @Nullable
+        final String owner;     // Null for enable/disable calls.
+        final String query;
+        final boolean on;
+
+        Rule(@Nullable String owner, String query, boolean on) {
+            this.owner = owner;
+            this.query = query;
+            this.on = on;
+        }
+    }
+
+    private ALogSite(ALog log, String tag, String file, int line) {
+        this.log = log;
+        this.tag = tag;
+        this.file = file;
+        this.line = line;
+    }
+
+    /**
+     * Register call site of caller, hold it in a static final field so the stack is
+     * inspected only once.
+     */
+    public static ALogSite at(ALog log, Object tagObj) {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        StackTraceElement caller = (stack.length > 1) ? stack[1] : null;
+        String file = (caller != null && caller.getFileName() != null) ? caller.getFileName() : "?";
+        return at(log, tagObj, file, (caller != null) ? caller.getLineNumber() : 0);
+    }
+
+    /**
+     * Register site with explicit file and line, ex when line numbers are stripped.
+     */
+    public static ALogSite at(ALog log, Object tagObj, String file, int line) {
+        ALogSite site = new ALogSite(log, ALog.tagId(tagObj), file, line);
+        synchronized (RULES) {
+            site.enabled = site.ruled();
+            SITES.add(site);
+        }
+        return site;
+    }
+
+    /**
+     * @return State the rules, applied in order, give this site. Caller holds RULES.
+     */
+    private boolean ruled() {
+        boolean on = false;
+        for (Rule rule : RULES) {
+            if (matches(rule.query)) {
+                on = rule.on;
+            }
+        }
+        return on;
+    }
+
+    /**
+     * @return True if site will log.
+     */
+    public boolean isOn() {
+        return enabled || log.isEnabled();
+    }
+
+    /**
+     * Log concatenated <b>args</b> if site is on.
+     */
+    public void msg(Object... args) {
+        if (enabled || log.isEnabled()) {
+            log.println(ALog.tagStr(tag), ALog.join("", 0, args, null));
+        }
+    }
+
+    /**
+     * Log message and Throwable if site is on.
+     */
+    public void msg(String msg, Throwable tr) {
+        if (enabled || log.isEnabled()) {
+            log.println(ALog.tagStr(tag), msg, tr);
+        }
+    }
+
+    /**
+     * @return "file:line [L] tag on|off"
+     */
+    @Override
+    public String toString() {
+        return file + ":" + line + " [" + log.name().toUpperCase(Locale.US) + "] " + tag + (enabled ? " on" : " off");
+    }
+
+    // =============================================================================================
+    // Registry
+    // =============================================================================================
+
+    /**
+     * @return Registered sites.
+     */
+    public static List<ALogSite> list() {
+        return new ArrayList<>(SITES);
+    }
+
+    /**
+     * @return Registered sites matching <b>query</b>.
+     */
+    public static List<ALogSite> list(String query) {
+        ArrayList<ALogSite> found = new ArrayList<>();
+        for (ALogSite site : SITES) {
+            if (site.matches(query)) {
+                found.add(site);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Turn on sites matching <b>query</b>, now and when registered later.
+     *
+     * @return Number of registered sites matched.
+     */
+    public static int enable(String query) {
+        return apply(query, true);
+    }
+
+    /**
+     * Turn off sites matching <b>query</b>, now and when registered later.
+     *
+     * @return Number of registered sites matched.
+     */
+    public static int disable(String query) {
+        return apply(query, false);
+    }
+
+    /**
+     * Remove all rules and turn all sites off.
+     */
+    public static void reset() {
+        synchronized (RULES) {
+            RULES.clear();
+            for (ALogSite site : SITES) {
+                site.enabled = false;
+            }
+        }
+    }
+
+    /**
+     * Replace rules previously set by <b>owner</b> (ex: a config file) with <b>disable</b>
+     * then <b>enable</b> queries. Rules of others, ex: set from adb, are kept and every
+     * site is re-evaluated from all rules in order.
+     */
+    public static void setRules(String owner, List<String> disable, List<String> enable) {
+        synchronized (RULES) {
+            Iterator<Rule> iter = RULES.iterator();
+            while (iter.hasNext()) {
+                if (owner.equals(iter.next().owner)) {
+                    iter.remove();
+                }
+            }
+            for (String query : disable) {
+                RULES.add(new Rule(owner, query, false));
+            }
+            for (String query : enable) {
+                RULES.add(new Rule(owner, query, true));
+            }
+            for (ALogSite site : SITES) {
+                site.enabled = site.ruled();
+            }
+        }
+    }
+
+    /**
+     * Add rule, replacing an earlier enable or disable of the same query so repeated
+     * toggles do not grow the rules. Caller's rule moves last, it wins over older rules.
+     */
+    private static int apply(String query, boolean on) {
+        int count = 0;
+        synchronized (RULES) {
+            Iterator<Rule> iter = RULES.iterator();
+            while (iter.hasNext()) {
+                Rule rule = iter.next();
+                if (rule.owner == null && rule.query.equals(query)) {
+                    iter.remove();
+                }
+            }
+            RULES.add(new Rule(null, query, on));
+            for (ALogSite site : SITES) {
+                if (site.matches(query)) {
+                    site.enabled = on;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if all terms of <b>query</b> match this site, empty query matches all.
+     */
+    boolean matches(String query) {
+        for (String term : query.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            boolean match;
+            if (term.startsWith("file:")) {
+                match = glob(term, 5, file);
+            } else if (term.startsWith("line:")) {
+                match = inRange(term.substring(5), line);
+            } else if (term.startsWith("tag:")) {
+                match = glob(term, 4, tag);
+            } else if (term.startsWith("level:")) {
+                match = (ALogConfig.parseLevel(term.substring(6)) == log.level());
+            } else {
+                match = glob(term, 0, file + ":" + line) || glob(term, 0, tag);
+            }
+            if (!match) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inRange(String range, int value) {
+        try {
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                return Integer.parseInt(range) == value;
+            }
+            return Integer.parseInt(range.substring(0, dash)) <= value
+                    && value <= Integer.parseInt(range.substring(dash + 1));
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Match <b>str</b> against glob pattern starting at <b>patIdx</b>, '*' any run, '?' any char.
+     */
+    static boolean glob(String pat, int patIdx, @Nullable String str) {
+        if (str == null) {
+            return false;
+        }
+        int strIdx = 0;
+        int starPat = -1;
+        int starStr = 0;
+        while (strIdx < str.length()) {
+            if (patIdx < pat.length()
+                    && (pat.charAt(patIdx) == '?' || pat.charAt(patIdx) == str.charAt(strIdx))) {
+                patIdx++;
+                strIdx++;
+            } else if (patIdx < pat.length() && pat.charAt(patIdx) == '*') {
+                starPat = patIdx++;
+                starStr = strIdx;
+            } else if (starPat >= 0) {
+                patIdx = starPat + 1;
+                strIdx = ++starStr;
+            } else {
+                return false;
+            }
+        }
+        while (patIdx < pat.length() && pat.charAt(patIdx) == '*') {
+            patIdx++;
+        }
+        return patIdx == pat.length();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * Debug intent to toggle {@link ALogSite} call sites at runtime. Protected by the DUMP
+ * permission, which adb shell holds and normal apps can not get.
+ * <p>
+ * Extras, applied in this order: <b>reset</b> (boolean), <b>disable</b> (query),
+ * <b>enable</b> (query), <b>list</b> (query, "" for all). Results are printed to logcat
+ * with tag "ALogSite" regardless of {@link ALog#getMinLevel()}.
+ * <pre>
+ *   adb shell am broadcast -a com.landenlabs.all_log.alog.SITE \
+ *       -n com.landenlabs.all_log/.alog.ALogSiteReceiver \
+ *       --es enable "file:NetClient.java line:120-140" --es list ""
+ * </pre>
+ *
+ * @author Dennis Lang
+ */
+public class ALogSiteReceiver extends BroadcastReceiver {
+    private static final String TAG = "ALogSite";
+
+    public static final String ACTION = "com.landenlabs.all_log.alog.SITE";
+    public static final String EXTRA_RESET = "reset";
+    public static final String EXTRA_ENABLE = "enable";
+    public static final String EXTRA_DISABLE = "disable";
+    public static final String EXTRA_LIST = "list";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (intent.getBooleanExtra(EXTRA_RESET, false)) {
+            ALogSite.reset();
+            Log.println(Log.INFO, TAG, "reset");
+        }
+        String query = intent.getStringExtra(EXTRA_DISABLE);
+        if (query != null) {
+            Log.println(Log.INFO, TAG, "disable '" + query + "' matched " + ALogSite.disable(query));
+        }
+        query = intent.getStringExtra(EXTRA_ENABLE);
+        if (query != null) {
+            Log.println(Log.INFO, TAG, "enable '" + query + "' matched " + ALogSite.enable(query));
+        }
+        query = intent.getStringExtra(EXTRA_LIST);
+        if (query != null) {
+            for (ALogSite site : ALogSite.list(query)) {
+                Log.println(Log.INFO, TAG, site.toString());
+            }
+        }
+    }
+}
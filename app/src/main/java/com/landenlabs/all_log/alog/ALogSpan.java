@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Timed section of code recorded into a per-name {@link ALogHistogram}.
+ * <p>
+ * Individual timings are not logged, only periodic or on demand summaries
+ * (count, p50, p90, p99, max). Span objects are pooled per thread and a disabled
+ * level returns a shared no-op span, so a span costs nothing when logging is off.
+ * A span may be closed out of order or on another thread, it is not reused until
+ * closed and every span its thread began after it is closed too.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   try (ALogSpan span = AppLog.LOG_NETWORK.d().span("fetch")) {
+ *       fetch(url);
+ *   }
+ *   ...
+ *   ALogSpan.startReports(AppLog.LOGFILE, 60 * 1000);  // or ALogSpan.report(ALog.i)
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogSpan implements AutoCloseable {
+    private static final String TAG = "ALogSpan";
+
+    /** Shared span returned when level is disabled. */
+    public static final ALogSpan NONE = new ALogSpan(null);
+
+    private static final ConcurrentHashMap<String, ALogHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static ScheduledFuture<?> sReportTimer;
+    private static volatile ALogTraceEventWriter sTraceWriter;
+
+    /**
+     * Per thread pool of spans, used as a stack since spans nest. Only the owner thread
+     * changes it, closed spans are popped once no open span is above them, by the owner's
+     * close or, if closed on another thread, by the owner's next begin.
+     */
+    private static final class Pool {
+        final Thread owner = Thread.currentThread();
+        final ArrayList<ALogSpan> spans = new ArrayList<>();
+        int depth;
+    }
+
+    private static final ThreadLocal<Pool> POOL = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            return new Pool();
+        }
+    };
+
+    private final Pool mPool;
+    private ALogHistogram mHistogram;
+    private long mStartNano;
+    private volatile boolean mOpen;     // Cleared by close, possibly on another thread.
+
+    private ALogSpan(Pool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * Start span, use {@link ALog#span(String)} which skips this when level is disabled.
+     */
+    static ALogSpan begin(String name) {
+        Pool pool = POOL.get();
+        // Spans closed on other threads are not popped by their close.
+        while (pool.depth > 0 && !pool.spans.get(pool.depth - 1).mOpen) {
+            pool.depth--;
+        }
+        ALogSpan span;
+        if (pool.depth < pool.spans.size()) {
+            span = pool.spans.get(pool.depth);
+        } else {
+            span = new ALogSpan(pool);
+            pool.spans.add(span);
+        }
+        pool.depth++;
+        span.mHistogram = histogram(name);
+        span.mStartNano = System.nanoTime();
+        span.mOpen = true;
+        return span;
+    }
+
+    /**
+     * Stop timing and record elapsed time.
+     */
+    @Override
+    public void close() {
+        if (mOpen) {
+            final long elapsedNano = System.nanoTime() - mStartNano;
+            mHistogram.record(elapsedNano);
+            ALogTraceEventWriter tracer = sTraceWriter;
+            if (tracer != null) {
+                // One complete slice on the owner's track, whichever thread closes it.
+                tracer.complete(mHistogram.name, mPool.owner.getId(), mStartNano, elapsedNano);
+            }
+            mOpen = false;
+            final Pool pool = mPool;
+            if (pool.owner == Thread.currentThread()) {
+                while (pool.depth > 0 && !pool.spans.get(pool.depth - 1).mOpen) {
+                    pool.depth--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Also write closed spans as slices to a trace event file, null to stop.
+     */
+    public static void setTraceWriter(ALogTraceEventWriter tracer) {
+        sTraceWriter = tracer;
+    }
+
+    /**
+     * @return Histogram for <b>name</b>, created on first use.
+     */
+    public static ALogHistogram histogram(String name) {
+        ALogHistogram histogram = HISTOGRAMS.get(name);
+        if (histogram == null) {
+            histogram = new ALogHistogram(name);
+            ALogHistogram prev = HISTOGRAMS.putIfAbsent(name, histogram);
+            if (prev != null) {
+                histogram = prev;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Log summary of each span name recorded since previous report, then reset.
+     */
+    public static void report(ALog log) {
+        final ALogOut.LogPrinter prn = log.enter();
+        if (prn == null) {
+            return;
+        }
+        for (ALogHistogram histogram : HISTOGRAMS.values()) {
+            String summary = histogram.takeSummary();
+            if (summary != null) {
+                log.print(prn, ALog.tagStr(TAG), summary);
+            }
+        }
+    }
+
+    /**
+     * Periodically report span summaries to <b>channel</b> at INFO level.
+     */
+    public static synchronized void startReports(final AppLog channel, long periodMilli) {
+        stopReports();
+        sReportTimer = ALogScheduler.schedulePeriodic(new Runnable() {
+            @Override
+            public void run() {
+                if (ALog.isInfo()) {
+                    report(channel.i());
+                }
+            }
+        }, periodMilli);
+    }
+
+    public static synchronized void stopReports() {
+        if (sReportTimer != null) {
+            sReportTimer.cancel(false);
+            sReportTimer = null;
+        }
+    }
+}
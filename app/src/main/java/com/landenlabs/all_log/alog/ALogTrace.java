@@ -0,0 +1,204 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Render Throwable stack traces with repeated trace folding.
+ * <p>
+ * Each trace is identified by a fingerprint of its exception classes and stack frames.
+ * The first occurrence is rendered in full (limited to maxFrames per throwable, frames in
+ * common with the enclosing trace folded to "... n more"). Later occurrences render as a
+ * short reference with occurrence count:
+ * <pre>
+ *   trace#3 java.io.IOException: timeout
+ *       at com.foo.Net.read(Net.java:42)
+ *       ...
+ *   trace#3 (17) java.io.IOException: timeout
+ * </pre>
+ * File sinks call {@link #reset()} whenever a new file starts, references only point
+ * to traces in the same file.
+ * Thread safe, intended to be called on a sink's writer thread.
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ALogTrace {
+
+    private static final class Entry {
+        final int id;
+        int count;
+        int countReported;
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+
+    private final int mMaxFrames;
+    private final int mMaxEntries;
+    private int mNextId = 1;
+    private final LinkedHashMap<Long, Entry> mEntries;
+
+    /**
+     * @param maxFrames  Maximum frames rendered per throwable in chain.
+     * @param maxEntries Maximum remembered fingerprints, least recently seen dropped first.
+     */
+    public ALogTrace(int maxFrames, final int maxEntries) {
+        mMaxFrames = maxFrames;
+        mMaxEntries = maxEntries;
+        mEntries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public ALogTrace() {
+        this(30, 256);
+    }
+
+    public String render(Throwable tr) {
+        StringBuilder sb = new StringBuilder();
+        render(tr, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Append full trace on first occurrence, else a short reference.
+     */
+    public synchronized void render(Throwable tr, StringBuilder out) {
+        Long key = fingerprint(tr);
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            entry = new Entry(mNextId++);
+            mEntries.put(key, entry);
+        }
+        entry.count++;
+
+        out.append("trace#").append(entry.id);
+        if (entry.count > 1) {
+            out.append(" (").append(entry.count).append(") ").append(tr);
+        } else {
+            out.append(' ');
+            appendTrace(tr, null, "", out, newSeen());
+        }
+    }
+
+    /**
+     * Forget seen traces and unreported counts, called when output starts a new file so
+     * its first occurrence of every trace is rendered in full. Ids keep increasing, a
+     * reference never matches a trace of an earlier file.
+     */
+    public synchronized void reset() {
+        mEntries.clear();
+    }
+
+    /**
+     * @return Occurrence counts of traces seen since previous call, or null if none.
+     *   Ex: "trace#3=17 trace#5=2"
+     */
+    public synchronized String takeCounts() {
+        StringBuilder sb = null;
+        for (Entry entry : mEntries.values()) {
+            if (entry.count != entry.countReported) {
+                sb = (sb == null) ? new StringBuilder("trace counts:") : sb;
+                sb.append(" trace#").append(entry.id).append('=').append(entry.count);
+                entry.countReported = entry.count;
+            }
+        }
+        return (sb == null) ? null : sb.toString();
+    }
+
+    /**
+     * @return Hash of exception classes and stack frames of throwable and its causes.
+     */
+    public static long fingerprint(Throwable tr) {
+        long hash = 1125899906842597L;
+        Set<Throwable> seen = newSeen();
+        while (tr != null && seen.add(tr)) {
+            hash = 31 * hash + tr.getClass().getName().hashCode();
+            for (StackTraceElement elem : tr.getStackTrace()) {
+                hash = 31 * hash + elem.getClassName().hashCode();
+                hash = 31 * hash + elem.getMethodName().hashCode();
+                hash = 31 * hash + elem.getLineNumber();
+            }
+            tr = tr.getCause();
+        }
+        return hash;
+    }
+
+    private static Set<Throwable> newSeen() {
+        return Collections.newSetFromMap(new IdentityHashMap<Throwable, Boolean>());
+    }
+
+    /**
+     * Similar to Throwable.printStackTrace, with frame limit and common frame folding.
+     */
+    private void appendTrace(Throwable tr, StackTraceElement[] enclosing, String caption,
+            StringBuilder out, Set<Throwable> seen) {
+        if (!seen.add(tr)) {
+            out.append('\n').append(caption).append("[CIRCULAR REFERENCE: ").append(tr).append(']');
+            return;
+        }
+        out.append(caption).append(tr);
+
+        StackTraceElement[] frames = tr.getStackTrace();
+        int last = frames.length - 1;
+        if (enclosing != null) {
+            int other = enclosing.length - 1;
+            while (last >= 0 && other >= 0 && frames[last].equals(enclosing[other])) {
+                last--;
+                other--;
+            }
+        }
+        final int common = frames.length - 1 - last;
+        final int shown = Math.min(last + 1, mMaxFrames);
+        for (int idx = 0; idx < shown; idx++) {
+            out.append("\n\tat ").append(frames[idx]);
+        }
+        if (shown <= last) {
+            out.append("\n\t... ").append(last + 1 - shown).append(" more frames");
+        }
+        if (common != 0) {
+            out.append("\n\t... ").append(common).append(" more");
+        }
+
+        for (Throwable suppressed : tr.getSuppressed()) {
+            out.append('\n');
+            appendTrace(suppressed, frames, "Suppressed: ", out, seen);
+        }
+        Throwable cause = tr.getCause();
+        if (cause != null) {
+            out.append('\n');
+            appendTrace(cause, frames, "Caused by: ", out, seen);
+        }
+    }
+}
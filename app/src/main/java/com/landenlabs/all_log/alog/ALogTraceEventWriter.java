@@ -0,0 +1,405 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.Process;
+
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log output target which writes Chrome trace-event JSON, viewable in ui.perfetto.dev
+ * or chrome://tracing.
+ * <p>
+ * Log messages become instant events, {@link ALogSpan}s become complete slices and
+ * {@link #counter(String, long)} values become counter tracks. Each thread gets its own
+ * track, taken from the tag's "#T&lt;id&gt;" thread suffix (see {@link ALog#tagStr(Object)}).
+ * <p>
+ * Events are queued and encoded on the {@link ALogScheduler} i/o executor, which also opens
+ * the file. The file is a streaming JSON array without the closing bracket, which trace
+ * viewers accept, so a crash never leaves an unreadable file. Events dropped because the
+ * queue was full are counted, see {@link #getDropCount()}, and reported in the trace as
+ * an instant event "dropped N events, queue full" on the writer thread's track.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   ALogTraceEventWriter tracer = new ALogTraceEventWriter();
+ *   tracer.open(new File(context.getFilesDir(), "logs/trace.json"));
+ *   ALogSpan.setTraceWriter(tracer);
+ *   ALog.d.out(tracer);
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ALogTraceEventWriter implements ALogOut.LogPrinter, ALogScheduler.Sink {
+    private static final String TAG = "ALogTraceEventWriter";
+    private static final char[] LEVELS = { '0', '1', 'V','D', 'I', 'W', 'E', 'A' };
+
+    /**
+     * Queued trace event, phase is X (complete slice), i (instant) or C (counter).
+     */
+    private static final class Event {
+        final char phase;
+        final long timeMicro;
+        final long tid;
+        final String name;
+        final String msg;
+        final long value;       // Counter value or slice duration in microseconds.
+
+        Event(char phase, long tid, String name, String msg, long value) {
+            this(phase, System.nanoTime(), tid, name, msg, value);
+        }
+
+        Event(char phase, long timeNano, long tid, String name, String msg, long value) {
+            this.phase = phase;
+            this.timeMicro = timeNano / 1000;
+            this.tid = tid;
+            this.name = name;
+            this.msg = msg;
+            this.value = value;
+        }
+    }
+
+    private final int mPid = Process.myPid();
+    private final long mMainTid = mainTid();
+    private final ArrayBlockingQueue<Event> mQueue;
+    private final ALogScheduler mScheduler;
+    private final ALogScheduler.Task mDrainTask;
+    private final AtomicLong mDropCount = new AtomicLong();
+    private int mOpenGen;                   // Guarded by this, latest open.
+    private volatile boolean mOpening;      // Events wait in queue until file is open.
+
+    // Drain only, file access guarded by this.
+    private FileChannel mChannel;
+    private long mDropReported;
+    private final ArrayList<Event> mBatch = new ArrayList<>();
+    private final StringBuilder mSb = new StringBuilder();
+    private final HashSet<Long> mNamedTids = new HashSet<>();
+    private final ByteBuffer mBuffer = ByteBuffer.allocateDirect(32 * 1024);
+    private boolean mFirstEvent = true;
+
+    public ALogTraceEventWriter() {
+        this(4096);
+    }
+
+    /**
+     * @param queueCapacity Maximum queued events before events are dropped.
+     */
+    public ALogTraceEventWriter(int queueCapacity) {
+        mQueue = new ArrayBlockingQueue<>(queueCapacity);
+        mScheduler = ALogScheduler.getDefault();
+        mDrainTask = mScheduler.register(this);
+    }
+
+    /**
+     * Open trace.json in default log directory.
+     */
+    @Override
+    public void open(Context context) {
+        open(new File(context.getFilesDir().getAbsolutePath() + "/logs", "trace.json"));
+    }
+
+    /**
+     * Start a new trace file, replacing any existing file. Returns immediately, the file is
+     * created on the i/o executor. Events added meanwhile stay queued and are written to
+     * the new file once it is open.
+     */
+    public void open(final File file) {
+        final int gen;
+        synchronized (this) {
+            gen = ++mOpenGen;
+            mOpening = true;
+        }
+        final Runnable opener = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ALogTraceEventWriter.this) {
+                    if (gen == mOpenGen) {
+                        openLocked(file);
+                        mOpening = false;
+                    }
+                }
+                mDrainTask.signal();
+            }
+        };
+        if (!mScheduler.execute(opener)) {
+            // Scheduler shut down, open on caller's thread rather than stay opening.
+            opener.run();
+        }
+    }
+
+    /**
+     * Caller holds this.
+     */
+    @WorkerThread
+    private void openLocked(File file) {
+        closeChannel();
+        try {
+            File dir = file.getParentFile();
+            if (dir != null && !dir.exists() && !dir.mkdirs()) {
+                ALog.w.tagMsg(TAG, "mkdirs failed ", dir);
+            }
+            mChannel = new FileOutputStream(file, false).getChannel();
+            mFirstEvent = true;
+            mNamedTids.clear();
+            writeText("[");
+        } catch (IOException ex) {
+            ALog.e.tagMsg(TAG, ex);
+        }
+    }
+
+    /**
+     * Close file, also cancels a pending {@link #open(File)}.
+     */
+    @Override
+    public synchronized void close() {
+        mOpenGen++;
+        mOpening = false;
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (mChannel != null) {
+            try {
+                mChannel.close();
+            } catch (IOException ignore) {
+            }
+            mChannel = null;
+        }
+    }
+
+    @Override
+    public int maxTagLen() {
+        return MAX_TAG_LEN;
+    }
+
+    /**
+     * Log message becomes an instant event on the thread's track.
+     */
+    @Override
+    public void println(int priority, String tag, String msg) {
+        String name = tag;
+        long tid = Thread.currentThread().getId();
+        int pos = tag.lastIndexOf("#T");
+        if (pos != -1) {
+            name = tag.substring(0, pos);
+            tid = parseTid(tag, pos + 2, tid);
+        }
+        add(new Event('i', tid, name, LEVELS[priority & 7] + " " + msg, 0));
+    }
+
+    /**
+     * Add a finished slice to thread <b>tid</b>'s track as one complete event, so slices
+     * ended on another thread, out of order or partly dropped still nest correctly.
+     *
+     * @param tid       Thread which began the slice.
+     * @param startNano System.nanoTime() when the slice began.
+     * @param durNano   Slice duration.
+     */
+    public void complete(String name, long tid, long startNano, long durNano) {
+        add(new Event('X', startNano, tid, name, null, durNano / 1000));
+    }
+
+    /**
+     * Add value to counter track <b>name</b>.
+     */
+    public void counter(String name, long value) {
+        add(new Event('C', Thread.currentThread().getId(), name, null, value));
+    }
+
+    private void add(Event event) {
+        if (mQueue.offer(event)) {
+            mDrainTask.signal();
+        } else {
+            mDropCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return Events dropped because queue was full, since created.
+     */
+    public long getDropCount() {
+        return mDropCount.get();
+    }
+
+    /**
+     * @return Main thread id, -1 without a main Looper (JVM unit tests).
+     */
+    private static long mainTid() {
+        Looper mainLooper = Looper.getMainLooper();
+        return (mainLooper != null) ? mainLooper.getThread().getId() : -1;
+    }
+
+    private long parseTid(String tag, int start, long defTid) {
+        if (tag.startsWith("main", start)) {
+            return mMainTid;
+        }
+        long tid = 0;
+        int idx = start;
+        for (; idx < tag.length() && Character.isDigit(tag.charAt(idx)); idx++) {
+            tid = tid * 10 + (tag.charAt(idx) - '0');
+        }
+        return (idx == start) ? defTid : tid;
+    }
+
+    @WorkerThread
+    @Override
+    public boolean drain(int maxRecords) {
+        if (mOpening) {
+            return false;   // Opener signals once the file is open.
+        }
+        mQueue.drainTo(mBatch, maxRecords);
+        synchronized (this) {
+            if (mChannel != null) {
+                try {
+                    reportDrops();
+                    for (Event event : mBatch) {
+                        encode(event);
+                        if (mSb.length() > 4096) {
+                            writeText(mSb);
+                            mSb.setLength(0);
+                        }
+                    }
+                    writeText(mSb);
+                } catch (IOException ex) {
+                    ALog.e.tagMsg(TAG, ex);
+                }
+            }
+        }
+        mSb.setLength(0);
+        mBatch.clear();
+        return hasPending();
+    }
+
+    @Override
+    public boolean hasPending() {
+        return !mOpening && !mQueue.isEmpty();
+    }
+
+    /**
+     * Mark in trace how many events were dropped since last report.
+     */
+    @WorkerThread
+    private void reportDrops() {
+        long dropped = mDropCount.get();
+        if (dropped != mDropReported) {
+            encode(new Event('i', Thread.currentThread().getId(), TAG,
+                    "W dropped " + (dropped - mDropReported) + " events, queue full", 0));
+            mDropReported = dropped;
+        }
+    }
+
+    /**
+     * Append one JSON trace event.
+     */
+    @WorkerThread
+    private void encode(Event event) {
+        final long tid = (event.tid == mMainTid) ? mPid : event.tid;
+        if (mNamedTids.add(tid)) {
+            startEvent();
+            mSb.append("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":").append(mPid)
+                    .append(",\"tid\":").append(tid)
+                    .append(",\"args\":{\"name\":\"")
+                    .append(tid == mPid ? "main" : "T" + tid).append("\"}}");
+        }
+
+        startEvent();
+        mSb.append("{\"ph\":\"").append(event.phase).append("\",\"ts\":").append(event.timeMicro)
+                .append(",\"pid\":").append(mPid).append(",\"tid\":").append(tid)
+                .append(",\"name\":");
+        appendJson(event.name);
+        switch (event.phase) {
+            case 'i':
+                mSb.append(",\"s\":\"t\",\"args\":{\"msg\":");
+                appendJson(event.msg);
+                mSb.append('}');
+                break;
+            case 'C':
+                mSb.append(",\"args\":{\"value\":").append(event.value).append('}');
+                break;
+            case 'X':
+                mSb.append(",\"dur\":").append(event.value);
+                break;
+        }
+        mSb.append('}');
+    }
+
+    private void startEvent() {
+        if (!mFirstEvent) {
+            mSb.append(",\n");
+        }
+        mFirstEvent = false;
+    }
+
+    private void appendJson(String str) {
+        mSb.append('"');
+        for (int idx = 0; idx < str.length(); idx++) {
+            char chr = str.charAt(idx);
+            switch (chr) {
+                case '"':  mSb.append("\\\""); break;
+                case '\\': mSb.append("\\\\"); break;
+                case '\n': mSb.append("\\n"); break;
+                case '\r': mSb.append("\\r"); break;
+                case '\t': mSb.append("\\t"); break;
+                default:
+                    if (chr < 0x20) {
+                        mSb.append(String.format("\\u%04x", (int) chr));
+                    } else {
+                        mSb.append(chr);
+                    }
+            }
+        }
+        mSb.append('"');
+    }
+
+    @WorkerThread
+    private void writeText(CharSequence text) throws IOException {
+        final int end = text.length();
+        int start = 0;
+        while (start < end) {
+            int room = mBuffer.remaining() / ALogUtf8.MAX_BYTES_PER_CHAR;
+            int stop = ALogUtf8.splitAt(text, start, Math.min(end, start + room));
+            ALogUtf8.put(mBuffer, text, start, stop);
+            start = stop;
+            ((Buffer) mBuffer).flip();
+            while (mBuffer.hasRemaining()) {
+                mChannel.write(mBuffer);
+            }
+            ((Buffer) mBuffer).clear();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocation free UTF-8 encoding of characters straight into a ByteBuffer.
+ * <p>
+ * Log text is nearly all ASCII, so ASCII runs are copied by a tight loop before
+ * falling back to general multi-byte encoding.
+ *
+ * @author Dennis Lang
+ */
+final class ALogUtf8 {
+
+    /** Worst case bytes per char (surrogate pair is 4 bytes for 2 chars). */
+    static final int MAX_BYTES_PER_CHAR = 3;
+
+    private ALogUtf8() {
+    }
+
+    /**
+     * Encode <b>src</b> into <b>dst</b>, caller must ensure
+     * dst.remaining() &ge; src.length() * MAX_BYTES_PER_CHAR.
+     * Unpaired surrogates are written as '?'.
+     */
+    static void put(ByteBuffer dst, CharSequence src) {
+        put(dst, src, 0, src.length());
+    }
+
+    static void put(ByteBuffer dst, CharSequence src, int start, int end) {
+        int idx = start;
+
+        // ASCII fast path.
+        while (idx < end) {
+            char chr = src.charAt(idx);
+            if (chr >= 0x80) {
+                break;
+            }
+            dst.put((byte) chr);
+            idx++;
+        }
+
+        while (idx < end) {
+            char chr = src.charAt(idx++);
+            if (chr < 0x80) {
+                dst.put((byte) chr);
+            } else if (chr < 0x800) {
+                dst.put((byte) (0xc0 | (chr >> 6)));
+                dst.put((byte) (0x80 | (chr & 0x3f)));
+            } else if (Character.isSurrogate(chr)) {
+                if (Character.isHighSurrogate(chr) && idx < end
+                        && Character.isLowSurrogate(src.charAt(idx))) {
+                    int codePoint = Character.toCodePoint(chr, src.charAt(idx++));
+                    dst.put((byte) (0xf0 | (codePoint >> 18)));
+                    dst.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                    dst.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                    dst.put((byte) (0x80 | (codePoint & 0x3f)));
+                } else {
+                    dst.put((byte) '?');
+                }
+            } else {
+                dst.put((byte) (0xe0 | (chr >> 12)));
+                dst.put((byte) (0x80 | ((chr >> 6) & 0x3f)));
+                dst.put((byte) (0x80 | (chr & 0x3f)));
+            }
+        }
+    }
+
+    /**
+     * @return UTF-8 encoded length in bytes of src[start, end).
+     */
+    static int length(CharSequence src, int start, int end) {
+        int bytes = end - start;
+        for (int idx = start; idx < end; idx++) {
+            char chr = src.charAt(idx);
+            if (chr >= 0x80) {
+                // Surrogate pairs are 4 bytes, 2 per char.
+                bytes += (chr < 0x800 || Character.isSurrogate(chr)) ? 1 : 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Safe split point at or before <b>end</b> which does not split a surrogate pair.
+     */
+    static int splitAt(CharSequence src, int start, int end) {
+        if (end > start && end < src.length() && Character.isHighSurrogate(src.charAt(end - 1))) {
+            return end - 1;
+        }
+        return end;
+    }
+}
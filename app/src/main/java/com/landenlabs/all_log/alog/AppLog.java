@@ -23,6 +23,8 @@
 
 package com.landenlabs.all_log.alog;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import static com.landenlabs.all_log.alog.AppLog.OutLog.LogFile;
 import static com.landenlabs.all_log.alog.AppLog.OutLog.LogNone;
 import static com.landenlabs.all_log.alog.AppLog.OutLog.LogSys;
@@ -46,6 +48,13 @@ import static com.landenlabs.all_log.alog.AppLog.OutLog.LogSys;
  *     AppLog.LOGFILE.d().self().fmt("%s=%s", "key", "vaue");
  * <p>
  *     AppLog.LOG_NETWORK.enabled = true;
+ * <p>
+ *     // Message body only built if channel and level are enabled.
+ *     AppLog.LOG_NETWORK.v().tagLazy(TAG, response, rsp -> rsp.toJson());
+ * <p>
+ *     // Route channels to their own files, each with its own queue and rotation.
+ *     AppLog.LOG_NETWORK.route(ALogFileWriter.create(context, "network.log", 4*1024*1024), Log.VERBOSE);
+ *     AppLog.LOGFILE.route(ALogFileWriter.create(context, "app.log", 4*1024*1024), Log.INFO);
  * </Pre>
  *
  * @author  Dennis Lang
@@ -148,32 +157,130 @@ public enum AppLog {
         }
     }
 
+    /**
+     * Channel route to a custom output target and level, published as part of
+     * {@link ALog.State} so re-routing is atomic. Only the optional rate limiter holds
+     * mutable state.
+     */
+    static final class Route {
+        final ALogOut.LogPrinter out;       // Null to keep channel's default output.
+        final int minLevel;
+        final int ratePerSec;               // Zero for no limit.
+        private final long mIntervalNano;
+        private final AtomicLong mNextNano;  // Rate limit theoretical arrival time.
+
+        Route(ALogOut.LogPrinter out, int minLevel, int ratePerSec) {
+            this.out = out;
+            this.minLevel = minLevel;
+            this.ratePerSec = ratePerSec;
+            mIntervalNano = (ratePerSec > 0) ? 1_000_000_000L / ratePerSec : 0;
+            mNextNano = (ratePerSec > 0) ? new AtomicLong(System.nanoTime()) : null;
+        }
+
+        /**
+         * @param dflt        Channel's default logger for this level.
+         * @param routed      File logger for this level, used if routed to custom output.
+         * @param globalLevel Global minimum level from the same state as this route.
+         */
+        ALog log(ALog dflt, ALog routed, int globalLevel) {
+            ALog log = (out == null) ? dflt : routed;
+            final int level = log.level();
+            if (level < minLevel || level < globalLevel || level >= ALog.NOLOGGING || !allow()) {
+                return ALog.none;
+            }
+            return log.admitNext(out, globalLevel);
+        }
+
+        /**
+         * Rate limit, allow bursts up to one second of messages then ratePerSec.
+         */
+        private boolean allow() {
+            if (mNextNano == null) {
+                return true;
+            }
+            final long nowNano = System.nanoTime();
+            final long burstNano = 1_000_000_000L;
+            for (;;) {
+                long next = mNextNano.get();
+                long start = Math.max(next, nowNano);
+                if (start - nowNano >= burstNano) {
+                    return false;
+                }
+                if (mNextNano.compareAndSet(next, start + mIntervalNano)) {
+                    return true;
+                }
+            }
+        }
+    }
+
     OutLog out = LogSys;
 
     AppLog(OutLog outLog) {
         out = outLog;
     }
 
+    /**
+     * Route this channel to its own output target, ex: a separate {@link ALogFileWriter}.
+     * Replaces any previous route atomically, concurrent loggers see either the old or
+     * new route.
+     *
+     * @param logPrn   Output target, null to restore the channel's default output.
+     * @param minLevel Channel minimum level, applied in addition to global minimum level.
+     */
+    public void route(ALogOut.LogPrinter logPrn, int minLevel) {
+        synchronized (ALog.State.class) {
+            ALog.State state = ALog.state();
+            Route[] routes = state.routes.clone();
+            routes[ordinal()] = (logPrn == null) ? null : new Route(logPrn, minLevel, 0);
+            ALog.setState(new ALog.State(state.minLevel, routes, state.config));
+        }
+    }
+
+    /**
+     * @return Current routed output target or null if using channel's default output.
+     */
+    public ALogOut.LogPrinter getRoute() {
+        Route route = ALog.state().routes[ordinal()];
+        return (route == null) ? null : route.out;
+    }
+
+    /**
+     * Routes and global level are read from one {@link ALog.State} so a config reload
+     * is applied to this call either entirely or not at all. An admitted call checks the
+     * global level of that state, it does not read the state again.
+     */
+    private ALog log(ALog dflt, ALog routed) {
+        ALog.State state = ALog.state();
+        Route route = state.routes[ordinal()];
+        if (route != null) {
+            return route.log(dflt, routed, state.minLevel);
+        }
+        final int level = dflt.level();
+        if (level < state.minLevel || level >= ALog.NOLOGGING) {
+            return ALog.none;
+        }
+        return dflt.admitNext(null, state.minLevel);
+    }
 
     // Logging levels.
     //
     public ALog v() {
-        return out.v();
+        return log(out.v(), ALog.fv);
     }
     public ALog d() {
-        return out.d();
+        return log(out.d(), ALog.fd);
     }
     public ALog i() {
-        return out.i();
+        return log(out.i(), ALog.fi);
     }
     public ALog w() {
-        return out.w();
+        return log(out.w(), ALog.fw);
     }
     public ALog e() {
-        return out.e();
+        return log(out.e(), ALog.fe);
     }
     public ALog a() {
-        return out.a();
+        return log(out.a(), ALog.fa);
     }
 
     /**
@@ -181,6 +288,6 @@ public enum AppLog {
      *
      */
     public static void setMinLevel(int level) {
-        ALog.minLevel = level;
+        ALog.setMinLevel(level);
     }
 }
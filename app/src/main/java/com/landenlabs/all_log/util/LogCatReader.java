@@ -0,0 +1,370 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.util;
+
+import android.os.Build;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Single long lived logcat reader for this process.
+ * <p>
+ * Runs one "logcat -v threadtime" filtered to our pid, parses each line into a
+ * {@link LogCatRecord} without regex or split, keeps the newest records in a bounded ring
+ * and delivers them to listeners in batches (everything available per read, up to
+ * {@link #BATCH_SIZE}).
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   LogCatReader.getInstance().addListener(batch -&gt; view.post(...));
+ *   LogCatReader.getInstance().start();
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LogCatReader {
+    private static final String TAG = "LogCatReader";
+    public static final int BATCH_SIZE = 128;
+
+    /**
+     * Receive parsed records, called on the reader thread.
+     */
+    public interface Listener {
+        void onRecords(List<LogCatRecord> batch);
+    }
+
+    private static final LogCatReader INSTANCE = new LogCatReader(2000);
+
+    private final int mPid = android.os.Process.myPid();
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<>();
+
+    // Bounded ring of newest records, guarded by this.
+    private final LogCatRecord[] mRing;
+    private long mCount;
+
+    private volatile Thread mThread;
+    private java.lang.Process mProcess;
+
+    // Reader thread only.
+    private final char[] mBuf = new char[8192];
+    private int mBufPos;
+    private int mBufEnd;
+    private char[] mLine = new char[1024];
+    private final String[] mTagCache = new String[64];
+    private int mDayKey = -1;
+    private long mDayMilli;
+
+    public LogCatReader(int capacity) {
+        mRing = new LogCatRecord[capacity];
+    }
+
+    public static LogCatReader getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start reader thread if not already running.
+     */
+    public synchronized void start() {
+        if (mThread != null) {
+            return;
+        }
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readLoop();
+            }
+        }, TAG);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    public synchronized void stop() {
+        if (mProcess != null) {
+            mProcess.destroy();
+            mProcess = null;
+        }
+        if (mThread != null) {
+            mThread.interrupt();
+            mThread = null;
+        }
+    }
+
+    public void addListener(Listener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @return Copy of newest records (up to maxRecords), oldest first.
+     */
+    public synchronized List<LogCatRecord> snapshot(int maxRecords) {
+        int size = (int) Math.min(Math.min(mCount, mRing.length), maxRecords);
+        ArrayList<LogCatRecord> list = new ArrayList<>(size);
+        for (long idx = mCount - size; idx < mCount; idx++) {
+            list.add(mRing[(int) (idx % mRing.length)]);
+        }
+        return list;
+    }
+
+    /**
+     * Empty ring, does not clear device log.
+     */
+    public synchronized void clear() {
+        mCount = 0;
+        java.util.Arrays.fill(mRing, null);
+    }
+
+    private synchronized void addToRing(List<LogCatRecord> batch) {
+        for (LogCatRecord record : batch) {
+            mRing[(int) (mCount++ % mRing.length)] = record;
+        }
+    }
+
+    private void readLoop() {
+        final Thread self = Thread.currentThread();
+        ArrayList<String> cmd = new ArrayList<>();
+        cmd.add("logcat");
+        cmd.add("-v");
+        cmd.add("threadtime");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            cmd.add("--pid=" + mPid);
+        }
+
+        java.lang.Process process;
+        try {
+            process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        } catch (IOException ex) {
+            Log.e(TAG, ex.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (mThread != self) {
+                process.destroy();
+                return;
+            }
+            mProcess = process;
+        }
+
+        ArrayList<LogCatRecord> batch = new ArrayList<>(BATCH_SIZE);
+        try (Reader reader = new InputStreamReader(process.getInputStream())) {
+            int lineLen;
+            while (mThread == self && (lineLen = readLine(reader)) >= 0) {
+                LogCatRecord record = parse(mLine, lineLen);
+                if (record != null) {
+                    batch.add(record);
+                }
+                // Deliver when nothing more is buffered or the batch is full.
+                if (!batch.isEmpty() && (batch.size() >= BATCH_SIZE
+                        || (mBufPos == mBufEnd && !reader.ready()))) {
+                    addToRing(batch);
+                    for (Listener listener : mListeners) {
+                        listener.onRecords(batch);
+                    }
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        } catch (IOException ex) {
+            if (mThread == self) {
+                Log.e(TAG, ex.getMessage());
+            }
+        } finally {
+            synchronized (this) {
+                if (mThread == self) {
+                    mThread = null;
+                    mProcess = null;
+                }
+            }
+            process.destroy();
+        }
+    }
+
+    /**
+     * Read next line into mLine, reusing buffers.
+     *
+     * @return Line length or -1 at end of stream.
+     */
+    private int readLine(Reader reader) throws IOException {
+        int len = 0;
+        for (;;) {
+            if (mBufPos == mBufEnd) {
+                mBufEnd = reader.read(mBuf, 0, mBuf.length);
+                mBufPos = 0;
+                if (mBufEnd <= 0) {
+                    mBufEnd = 0;
+                    return len > 0 ? len : -1;
+                }
+            }
+            char chr = mBuf[mBufPos++];
+            if (chr == '\n') {
+                return len;
+            }
+            if (len == mLine.length) {
+                mLine = java.util.Arrays.copyOf(mLine, len * 2);
+            }
+            mLine[len++] = chr;
+        }
+    }
+
+    /**
+     * Parse threadtime line:
+     * <pre>
+     * 10-18 22:24:01.123  1234  5678 D Tag     : message
+     * </pre>
+     *
+     * @return Record or null if not a log line or not from our pid.
+     */
+    LogCatRecord parse(char[] line, int len) {
+        if (len > 0 && line[len - 1] == '\r') {
+            len--;
+        }
+        if (len < 24 || line[2] != '-' || line[5] != ' ' || line[8] != ':' || line[14] != '.') {
+            return null;    // "--------- beginning of main" and other noise.
+        }
+        int month = num(line, 0, 2);
+        int day = num(line, 3, 5);
+        long timeMilli = dayMilli(month, day)
+                + num(line, 6, 8) * 3600_000L
+                + num(line, 9, 11) * 60_000L
+                + num(line, 12, 14) * 1000L
+                + num(line, 15, 18);
+
+        int pos = skipSpace(line, 18, len);
+        int end = skipDigits(line, pos, len);
+        int pid = num(line, pos, end);
+        if (pid != mPid) {
+            return null;
+        }
+        pos = skipSpace(line, end, len);
+        end = skipDigits(line, pos, len);
+        int tid = num(line, pos, end);
+        pos = skipSpace(line, end, len);
+        if (pos >= len) {
+            return null;
+        }
+        int level = levelOf(line[pos]);
+
+        int tagStart = skipSpace(line, pos + 1, len);
+        int colon = tagStart;
+        while (colon < len && !(line[colon] == ':' && (colon + 1 == len || line[colon + 1] == ' '))) {
+            colon++;
+        }
+        int tagEnd = colon;
+        while (tagEnd > tagStart && line[tagEnd - 1] == ' ') {
+            tagEnd--;
+        }
+        int msgStart = Math.min(colon + 2, len);
+        return new LogCatRecord(timeMilli, pid, tid, level,
+                tag(line, tagStart, tagEnd), new String(line, msgStart, len - msgStart));
+    }
+
+    /**
+     * Tags repeat heavily, reuse String from a small direct mapped cache.
+     * Hash only rejects quickly, a hit must match character for character.
+     */
+    private String tag(char[] line, int start, int end) {
+        int hash = 0;
+        for (int idx = start; idx < end; idx++) {
+            hash = 31 * hash + line[idx];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (mTagCache.length - 1);
+        String tag = mTagCache[slot];
+        if (tag != null && tag.length() == end - start && tag.hashCode() == hash
+                && sameChars(tag, line, start)) {
+            return tag;
+        }
+        tag = new String(line, start, end - start);
+        mTagCache[slot] = tag;
+        return tag;
+    }
+
+    private static boolean sameChars(String str, char[] chars, int start) {
+        for (int idx = str.length() - 1; idx >= 0; idx--) {
+            if (str.charAt(idx) != chars[start + idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long dayMilli(int month, int day) {
+        int dayKey = month * 32 + day;
+        if (dayKey != mDayKey) {
+            Calendar cal = Calendar.getInstance();
+            int year = cal.get(Calendar.YEAR);
+            if (month - 1 > cal.get(Calendar.MONTH)) {
+                year--;     // December lines read in January.
+            }
+            cal.clear();
+            cal.set(year, month - 1, day);
+            mDayMilli = cal.getTimeInMillis();
+            mDayKey = dayKey;
+        }
+        return mDayMilli;
+    }
+
+    private static int levelOf(char chr) {
+        switch (chr) {
+            case 'V': return Log.VERBOSE;
+            case 'D': return Log.DEBUG;
+            case 'I': return Log.INFO;
+            case 'W': return Log.WARN;
+            case 'E': return Log.ERROR;
+            default:  return Log.ASSERT;
+        }
+    }
+
+    private static int num(char[] line, int start, int end) {
+        int value = 0;
+        for (int idx = start; idx < end; idx++) {
+            value = value * 10 + (line[idx] - '0');
+        }
+        return value;
+    }
+
+    private static int skipSpace(char[] line, int pos, int len) {
+        while (pos < len && line[pos] == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipDigits(char[] line, int pos, int len) {
+        while (pos < len && line[pos] >= '0' && line[pos] <= '9') {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * One parsed logcat line, produced by {@link LogCatReader}.
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings("WeakerAccess")
+public final class LogCatRecord {
+    /** Wall clock time, logcat prints millisecond resolution. */
+    public final long timeMilli;
+    public final int pid;
+    public final int tid;
+    /** android.util.Log priority, VERBOSE(2) to ASSERT(7). */
+    public final int level;
+    public final String tag;
+    public final String msg;
+
+    LogCatRecord(long timeMilli, int pid, int tid, int level, String tag, String msg) {
+        this.timeMilli = timeMilli;
+        this.pid = pid;
+        this.tid = tid;
+        this.level = level;
+        this.tag = tag;
+        this.msg = msg;
+    }
+
+    /**
+     * @return Record in logcat "brief" format, ex: D/Tag( 1234): message
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        return "VVVDIWEA".charAt(level & 7) + "/" + tag + "(" + tid + "): " + msg;
+    }
+}
@@ -25,9 +25,6 @@ package com.landenlabs.all_log.util;
 
 import android.os.AsyncTask;
 import android.util.Log;
-import android.view.View;
-import android.widget.ScrollView;
-import android.widget.TextView;
 
 import com.landenlabs.all_log.alog.ALogFileWriter;
 
@@ -35,7 +32,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.List;
 
 /**
  * Created by Dennis Lang on 1/1/17.
@@ -46,50 +43,45 @@ public class LogUtil {
 
     /**
      * Clear device log file and private logFile.
+     * Private file is cleared by its writer before it writes the next batch, so logging
+     * which follows lands in the new file. Neither clear does i/o on the caller's thread,
+     * safe to call from the main thread, even while the private file is still opening.
      */
     public static void clearLogCat() {
         try {
-            Process process = new ProcessBuilder()
-                    .command("logcat", "-c")
-                    .redirectErrorStream(true)
-                    .start();
-        } catch (IOException ex) {
-            Log.e(TAG, ex.getMessage());
-        }
-
-        try {
-            ALogFileWriter.Default.clear();
+            ALogFileWriter.Default.clearAsync();
         } catch (Exception ex) {
             Log.e(TAG, ex.getMessage());
         }
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Process process = new ProcessBuilder()
+                            .command("logcat", "-c")
+                            .redirectErrorStream(true)
+                            .start();
+                    process.waitFor();
+                } catch (IOException | InterruptedException ex) {
+                    Log.e(TAG, ex.getMessage());
+                }
+                LogCatReader.getInstance().clear();
+            }
+        }, "LogClear").start();
     }
 
     /**
-     * Get logcat output relevant for our logged messages.
+     * Get newest logcat lines relevant for our logged messages.
+     * Starts the shared {@link LogCatReader} on first use.
      */
     public static String getLogCat(String tag) {
+        LogCatReader reader = LogCatReader.getInstance();
+        reader.start();
         StringBuilder logStr = new StringBuilder();
-        try {
-            String line;
-
-            // String logcmd = String.format("logcat -d -v brief -s \"java\",\"%s\"", tag);
-            String logcmd = "logcat -d -v brief -t 4";
-            Process process = Runtime.getRuntime().exec(logcmd);
-            BufferedReader bufferedReader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()));
-
-            while ((line = bufferedReader.readLine()) != null) {
-                // Exclude junk and only show info this app has generated.
-                if (!line.startsWith("---") /* && (line.contains(tag) || line.contains("java")) */ ) {
-                    if (line.trim().length() > 2) {
-                        logStr.append(line + "\n");
-                    }
-                }
-            }
-        } catch(IOException ex) {
-            Log.e("foo", ex.getMessage());
+        for (LogCatRecord record : reader.snapshot(4)) {
+            logStr.append(record).append("\n");
         }
-
         return logStr.toString();
     }
 
@@ -116,55 +108,34 @@ public class LogUtil {
 
 
     /**
-     * Async Task which continuously reads LogCat output and updates TextView and advances scrollView.
-     * Call must call execute() to start task.
+     * Add logcat records to viewer as they arrive.
+     * Starts the shared {@link LogCatReader}, remove the returned listener when done.
      *
-     * @return Created async task.
+     * @return Listener added to LogCatReader.
      */
-    public static AsyncTask<Void, String, Void> getAsyncLogCat(
-            final TextView textView, final ScrollView scrollView)  {
-        AsyncTask<Void, String, Void> asyncLogCat =
-            new AsyncTask<Void, String, Void>() {
-
-            @Override
-            protected Void doInBackground(Void... params) {
-                try {
-                    Process process = Runtime.getRuntime().exec("logcat");
-                    BufferedReader bufferedReader = new BufferedReader(
-                            new InputStreamReader(process.getInputStream()));
-
-                    String line;
-                    while ((line = bufferedReader.readLine()) != null) {
-                        if (!line.startsWith("----") && line.trim().length() > 2) {
-                            publishProgress(line);
-                        }
-                    }
-                }
-                catch (IOException ex) {
-                    Log.e(TAG, ex.getMessage());
-                }
-                return null;
-            }
-
+    public static LogCatReader.Listener watchLogCat(final LogViewAdapter viewer)  {
+        LogCatReader.Listener listener = new LogCatReader.Listener() {
             @Override
-            protected void onProgressUpdate(String... values) {
-                textView.append(values[0] + "\n");
-                scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
+            public void onRecords(List<LogCatRecord> batch) {
+                viewer.addRecords(batch);
             }
         };
-
-        return asyncLogCat;
+        LogCatReader reader = LogCatReader.getInstance();
+        reader.addListener(listener);
+        reader.start();
+        return listener;
     }
 
     /**
-     * Async Task which continuously reads file output and updates TextView and advances scrollView.
+     * Async Task which continuously reads file output and adds lines to viewer.
+     * Viewer coalesces the lines into one update per frame.
      * Call must call execute() to start task.
      *
      * @param file   File to read.
      * @return Created async task.
      */
     public static AsyncTask<Void, String, Void> getAsyncReadFile(final File file,
-            final TextView textView, final ScrollView scrollView)  {
+            final LogViewAdapter viewer)  {
         AsyncTask<Void, String, Void> asyncLogFile =
                 new AsyncTask<Void, String, Void>() {
 
@@ -175,10 +146,16 @@ public class LogUtil {
                     @Override
                     protected Void doInBackground(Void... params) {
                         try {
+                            // Log file is created asynchronously, wait for it to appear.
+                            while (!file.exists() && !this.isCancelled()) {
+                                Thread.sleep(100);
+                            }
                             bufferedReader = new BufferedReader(new FileReader(file));
+                            int level = 0;
                             while (!this.isCancelled()) {
                                 long currentLen = file.length();
                                 if (currentLen < lastFileLen) {
+                                    bufferedReader.close();
                                     bufferedReader = new BufferedReader(new FileReader(file));
                                 }
                                 lastFileLen = currentLen;
@@ -186,7 +163,10 @@ public class LogUtil {
                                 String line = "";
                                 while ((line = bufferedReader.readLine()) != null) {
                                     if (line.trim().length() > 2) {
-                                        publishProgress(line);
+                                        // Stack trace lines keep the level of their message.
+                                        int lineLevel = LogViewAdapter.levelOf(line);
+                                        level = (lineLevel != 0) ? lineLevel : level;
+                                        viewer.add(level, line);
                                     }
                                 }
                                 Thread.sleep(1000);
@@ -197,17 +177,14 @@ public class LogUtil {
                         }
                         finally {
                             if (bufferedReader != null) {
-                                // bufferedReader.close();
+                                try {
+                                    bufferedReader.close();
+                                } catch (IOException ignore) {
+                                }
                             }
                         }
                         return null;
                     }
-
-                    @Override
-                    protected void onProgressUpdate(String... values) {
-                        textView.append(values[0] + "\n");
-                        scrollView.post(() -> scrollView.fullScroll(View.FOCUS_DOWN));
-                    }
                 };
 
         return asyncLogFile;
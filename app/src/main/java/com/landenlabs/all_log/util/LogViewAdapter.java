@@ -0,0 +1,263 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.util;
+
+import android.graphics.Color;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.annotation.AnyThread;
+import androidx.annotation.MainThread;
+
+import java.util.List;
+
+/**
+ * Virtualized log viewer adapter for a ListView.
+ * <p>
+ * Lines are kept in a bounded ring (oldest dropped), only visible rows are laid out and row
+ * views are recycled. Lines can be added from any thread, they are queued and moved into the
+ * ring once per frame via {@link Choreographer}, followed by a single notifyDataSetChanged.
+ * The list stays pinned to the bottom while the user is viewing the newest line.
+ * <p>
+ * Example:
+ * <br><font color="green">
+ *   LogViewAdapter adapter = new LogViewAdapter(listView, 100000);
+ *   adapter.add(Log.INFO, "some line");
+ * </font>
+ *
+ * @author Dennis Lang
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class LogViewAdapter extends BaseAdapter implements Choreographer.FrameCallback {
+
+    private final ListView mListView;
+    private final Choreographer mChoreographer;
+
+    // Ring, main thread only.
+    private final String[] mLines;
+    private final byte[] mLevels;
+    private int mStart;
+    private int mSize;
+
+    // Pending lines ring, grows up to capacity then drops the oldest, guarded by mPendingLock.
+    private final Object mPendingLock = new Object();
+    private String[] mPending;
+    private int[] mPendingLevels;
+    private int mPendingStart;
+    private int mPendingSize;
+    private boolean mFramePosted;
+
+    @MainThread
+    public LogViewAdapter(ListView listView, int capacity) {
+        mListView = listView;
+        mChoreographer = Choreographer.getInstance();
+        mLines = new String[capacity];
+        mLevels = new byte[capacity];
+        mPending = new String[Math.min(64, capacity)];
+        mPendingLevels = new int[mPending.length];
+        listView.setAdapter(this);
+    }
+
+    /**
+     * Queue one line, level is android.util.Log priority or 0 if unknown.
+     */
+    @AnyThread
+    public void add(int level, String line) {
+        synchronized (mPendingLock) {
+            pend(level, line);
+            postFrame();
+        }
+    }
+
+    /**
+     * Queue logcat records.
+     */
+    @AnyThread
+    public void addRecords(List<LogCatRecord> batch) {
+        synchronized (mPendingLock) {
+            for (LogCatRecord record : batch) {
+                pend(record.level, record.toString());
+            }
+            postFrame();
+        }
+    }
+
+    @MainThread
+    public void clear() {
+        synchronized (mPendingLock) {
+            clearPending();
+        }
+        java.util.Arrays.fill(mLines, null);
+        mStart = mSize = 0;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Add line to pending ring, only the newest capacity lines can be shown so when full
+     * the oldest pending line is dropped. Caller holds mPendingLock.
+     */
+    private void pend(int level, String line) {
+        int length = mPending.length;
+        if (mPendingSize == length && length < mLines.length) {
+            length = Math.min(mLines.length, length * 2);
+            String[] lines = new String[length];
+            int[] levels = new int[length];
+            for (int idx = 0; idx < mPendingSize; idx++) {
+                int pos = (mPendingStart + idx) % mPending.length;
+                lines[idx] = mPending[pos];
+                levels[idx] = mPendingLevels[pos];
+            }
+            mPending = lines;
+            mPendingLevels = levels;
+            mPendingStart = 0;
+        }
+        int pos = (mPendingStart + mPendingSize) % length;
+        mPending[pos] = line;
+        mPendingLevels[pos] = level;
+        if (mPendingSize < length) {
+            mPendingSize++;
+        } else {
+            mPendingStart = (mPendingStart + 1) % length;
+        }
+    }
+
+    private void clearPending() {
+        for (int idx = 0; idx < mPendingSize; idx++) {
+            mPending[(mPendingStart + idx) % mPending.length] = null;
+        }
+        mPendingStart = mPendingSize = 0;
+    }
+
+    private void postFrame() {
+        if (!mFramePosted) {
+            mFramePosted = true;
+            mChoreographer.postFrameCallback(this);
+        }
+    }
+
+    /**
+     * Move pending lines into ring, once per frame.
+     */
+    @MainThread
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        final boolean atBottom = mSize == 0
+                || mListView.getLastVisiblePosition() >= mSize - 1;
+        synchronized (mPendingLock) {
+            mFramePosted = false;
+            final int capacity = mLines.length;
+            final int length = mPending.length;
+            for (int idx = 0; idx < mPendingSize; idx++) {
+                int src = (mPendingStart + idx) % length;
+                int pos = (mStart + mSize) % capacity;
+                mLines[pos] = mPending[src];
+                mLevels[pos] = (byte) mPendingLevels[src];
+                if (mSize < capacity) {
+                    mSize++;
+                } else {
+                    mStart = (mStart + 1) % capacity;
+                }
+            }
+            clearPending();
+        }
+        notifyDataSetChanged();
+        if (atBottom && mSize > 0) {
+            mListView.setSelection(mSize - 1);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mSize;
+    }
+
+    @Override
+    public String getItem(int position) {
+        return mLines[(mStart + position) % mLines.length];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView row = (TextView) convertView;
+        if (row == null) {
+            row = new TextView(parent.getContext());
+            int pad = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 10,
+                    parent.getResources().getDisplayMetrics());
+            row.setPadding(pad, 0, pad, 0);
+            row.setLayoutParams(new AbsListView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        int idx = (mStart + position) % mLines.length;
+        row.setText(mLines[idx]);
+        row.setTextColor(levelColor(mLevels[idx]));
+        row.setBackgroundColor(StrUtil.lineColor(position));
+        return row;
+    }
+
+    /**
+     * @return Text color for android.util.Log priority.
+     */
+    public static int levelColor(int level) {
+        switch (level) {
+            case Log.VERBOSE: return Color.GRAY;
+            case Log.INFO:    return 0xff0040c0;
+            case Log.WARN:    return 0xffc06000;
+            case Log.ERROR:   return 0xffd00000;
+            case Log.ASSERT:  return 0xffc000c0;
+            default:          return Color.BLACK;
+        }
+    }
+
+    /**
+     * @return Priority from private log file line "time/L tag - msg", 0 if none found.
+     */
+    public static int levelOf(String line) {
+        int end = Math.min(line.length() - 2, 40);
+        for (int idx = 1; idx < end; idx++) {
+            if (line.charAt(idx) == '/' && line.charAt(idx + 2) == ' ') {
+                switch (line.charAt(idx + 1)) {
+                    case 'V': return Log.VERBOSE;
+                    case 'D': return Log.DEBUG;
+                    case 'I': return Log.INFO;
+                    case 'W': return Log.WARN;
+                    case 'E': return Log.ERROR;
+                    case 'A': return Log.ASSERT;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -27,7 +27,6 @@ package com.landenlabs.all_log.util;
 import android.text.SpannableString;
 import android.text.Spanned;
 import android.text.style.BackgroundColorSpan;
-import android.util.Log;
 
 /**
  * Created by Dennis Lang on 1/1/17.
@@ -42,29 +41,39 @@ public class StrUtil {
 
     private static final int[] LineColors = { 0xffe0ffff, 0xffffe0ff };
 
+    /**
+     * @return Alternating background color for line number.
+     */
+    public static int lineColor(int line) {
+        return LineColors[line % LineColors.length];
+    }
+
     /**
      * Colorize multi line data (alternating colors per line).
      *
      * @return Alternate colorized lines.
      */
     public static SpannableString colorizeLines(String str) {
-        String full = str.replaceAll("[\n]+", "\n");
-        String[] lines = full.split("\n");
-
+        // Collapse blank lines in a single pass.
+        StringBuilder sb = new StringBuilder(str.length());
+        for (int idx = 0; idx < str.length(); idx++) {
+            char chr = str.charAt(idx);
+            if (chr != '\n' || sb.length() == 0 || sb.charAt(sb.length() - 1) != '\n') {
+                sb.append(chr);
+            }
+        }
+        String full = sb.toString();
         SpannableString spanStr = new SpannableString(full);
 
-        int idx = 0;
+        int line = 0;
         int first = 0;
-        int last;
-
-        for (String line : lines) {
-            last = first + line.length();
-
-            int bgColor = LineColors[idx++ % LineColors.length];
-            BackgroundColorSpan colorSpan = new BackgroundColorSpan(bgColor);
-
-            spanStr.setSpan(colorSpan, first, last, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
-            Log.i("fxx", String.format("%d to %d", first, last));
+        while (first < full.length()) {
+            int last = full.indexOf('\n', first);
+            if (last == -1) {
+                last = full.length();
+            }
+            spanStr.setSpan(new BackgroundColorSpan(lineColor(line++)),
+                    first, last, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
             first = last + 1;
         }
 
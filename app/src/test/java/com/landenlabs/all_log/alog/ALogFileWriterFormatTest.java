@@ -0,0 +1,79 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Row encoding of {@link ALogFileWriter}.
+ *
+ * @author Dennis Lang
+ */
+public class ALogFileWriterFormatTest {
+    private File mDir;
+    private ALogFileWriter mWriter;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("alogFmt").toFile();
+        mWriter = new ALogFileWriter(64);
+        mWriter.setDir(mDir.getAbsolutePath());
+        mWriter.open("fmt.txt", 1024L * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        mWriter.delete();
+        ALogFileWriter.deleteFile(mDir);
+    }
+
+    /**
+     * Default row is "yyyy-MM-dd HH:mm:ss.SSS/L tag - msg", one '.' before the milliseconds.
+     */
+    @Test
+    public void defaultRowTimestamp() throws IOException {
+        mWriter.println(ALog.WARN, "Tag", "first");
+        mWriter.println(ALog.ERROR, "Tag", "second");
+        mWriter.close();
+
+        // Close ends the last row, adding an empty line.
+        List<String> rows = Files.readAllLines(mWriter.getFile().toPath());
+        assertEquals(rows.toString(), 3, rows.size());
+        assertEquals("", rows.get(2));
+        assertTrue(rows.get(0), rows.get(0).matches(
+                "\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3}/W Tag - first"));
+        assertTrue(rows.get(1), rows.get(1).matches(
+                "\\d{4}-\\d\\d-\\d\\d \\d\\d:\\d\\d:\\d\\d\\.\\d{3}/E Tag - second"));
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Deterministic lifecycle interleavings of {@link ALogFileWriter}.
+ * <p>
+ * Writer drains run on a manual executor, only when the test runs them, so records can be
+ * left pending across rotate, close and open. Archives are collected (and removed) after
+ * every step, so each record is found exactly once or, only while closed, counted dropped.
+ *
+ * @author Dennis Lang
+ */
+public class ALogFileWriterLifecycleTest {
+    private static final String MARK = "rec ";
+    private static final String NAME = "life.txt";
+
+    private final ArrayDeque<Runnable> mScheduled = new ArrayDeque<>();
+    private final ArrayList<Integer> mFound = new ArrayList<>();
+    private File mDir;
+    private ALogFileWriter mWriter;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("alogLife").toFile();
+        ALogScheduler scheduler = new ALogScheduler(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                mScheduled.add(task);
+            }
+        });
+        scheduler.setBatchSize(16);
+        mWriter = new ALogFileWriter(1024);
+        mWriter.setScheduler(scheduler);
+        mWriter.setDir(mDir.getAbsolutePath());
+        mWriter.open(NAME, 1024L * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        mWriter.close();
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                ALogFileWriter.deleteFile(file);
+            }
+        }
+        ALogFileWriter.deleteFile(mDir);
+    }
+
+    @Test
+    public void rotateCloseReopenKeepsEveryRecord() throws IOException {
+        final long dropStart = mWriter.getDropCount();
+
+        log(0, 100);
+        drain();
+
+        // Pending records cross an explicit rotation into the new file.
+        log(100, 150);
+        mWriter.rotate();
+        collectArchive();
+        log(150, 200);
+        drain();
+
+        // Size rotations between batches.
+        mWriter.setFileSizeLimit(2048);
+        log(200, 400);
+        drain();
+        mWriter.setFileSizeLimit(1024L * 1024);
+
+        // Close writes pending records first, records logged while closed are dropped.
+        log(400, 450);
+        mWriter.close();
+        log(450, 500);
+        drain();
+
+        // Reopen appends, pending records cross a second open and a rotation.
+        mWriter.open(NAME, 1024L * 1024);
+        log(500, 550);
+        mWriter.open(NAME, 1024L * 1024);
+        log(550, 600);
+        mWriter.rotate();
+        collectArchive();
+        log(600, 650);
+        drain();
+        mWriter.close();
+        collectLive();
+
+        assertEquals("dropped while closed", 50, mWriter.getDropCount() - dropStart);
+        int expect = 0;
+        for (int id : mFound) {
+            if (expect == 450) {
+                expect = 500;
+            }
+            assertEquals("record order " + mFound, expect, id);
+            expect++;
+        }
+        assertEquals("records found", 650, expect);
+    }
+
+    @Test
+    public void closedWriterCountsEveryDrop() throws IOException {
+        mWriter.close();
+        final long dropStart = mWriter.getDropCount();
+        log(0, 100);
+        drain();
+        assertEquals(100, mWriter.getDropCount() - dropStart);
+
+        mWriter.open(NAME, 1024L * 1024);
+        log(100, 200);
+        drain();
+        mWriter.close();
+        collectLive();
+        assertEquals(100, mFound.size());
+        assertEquals(100, (int) mFound.get(0));
+        assertEquals(199, (int) mFound.get(99));
+        assertEquals(100, mWriter.getDropCount() - dropStart);
+    }
+
+    @Test
+    public void openAsyncHoldsRecordsUntilOpen() throws IOException {
+        mWriter.close();
+        final long dropStart = mWriter.getDropCount();
+
+        // Open runs on the scheduler, a drain running before it holds the records.
+        mWriter.openAsync(NAME, 1024L * 1024);
+        assertEquals(ALogFileWriter.State.OPENING, mWriter.getState());
+        log(0, 50);
+        assertEquals("opener and drain scheduled", 2, mScheduled.size());
+        mScheduled.pollLast().run();
+        assertEquals(ALogFileWriter.State.OPENING, mWriter.getState());
+        drain();
+        assertEquals(ALogFileWriter.State.OPEN, mWriter.getState());
+        log(50, 100);
+        drain();
+        mWriter.close();
+        collectLive();
+
+        assertEquals(0, mWriter.getDropCount() - dropStart);
+        for (int id = 0; id < 100; id++) {
+            assertEquals("record order " + mFound, id, (int) mFound.get(id));
+        }
+        assertEquals(100, mFound.size());
+    }
+
+    /**
+     * Clear while opening, ex: right after init, only flags the opener. Nothing is created
+     * on the caller's thread and the opener starts an empty file.
+     */
+    @Test
+    public void clearWhileOpeningIsDoneByOpener() throws IOException {
+        log(0, 50);
+        drain();
+        mWriter.close();
+
+        mWriter.openAsync(NAME, 1024L * 1024);
+        mWriter.clear();
+        assertEquals(ALogFileWriter.State.OPENING, mWriter.getState());
+        log(50, 100);
+        drain();
+        assertEquals(ALogFileWriter.State.OPEN, mWriter.getState());
+        mWriter.close();
+        collectLive();
+        assertEquals(50, mFound.size());
+        assertEquals(50, (int) mFound.get(0));
+
+        // First run, log directory does not exist yet.
+        File subDir = new File(mDir, "sub");
+        mWriter.setDir(subDir.getAbsolutePath());
+        mWriter.openAsync(NAME, 1024L * 1024);
+        mWriter.clear();
+        assertTrue("no i/o by clear", !subDir.exists());
+        drain();
+        assertEquals(ALogFileWriter.State.OPEN, mWriter.getState());
+        mWriter.close();
+        ALogFileWriter.deleteFile(new File(subDir, NAME));
+        ALogFileWriter.deleteFile(subDir);
+    }
+
+    /**
+     * Async clear is done by the next drain, records logged before the drain land in the
+     * new file.
+     */
+    @Test
+    public void clearAsyncIsDoneByDrain() throws IOException {
+        log(0, 50);
+        drain();
+        mWriter.clearAsync();
+        log(50, 100);
+        drain();
+        mWriter.close();
+        collectLive();
+        assertEquals(50, mFound.size());
+        assertEquals(50, (int) mFound.get(0));
+        assertEquals(99, (int) mFound.get(49));
+    }
+
+    /**
+     * A failed archive must keep the live file, the writer fails and rotates once the
+     * archive can be written again.
+     */
+    @Test
+    public void failedArchiveKeepsLiveFile() throws IOException {
+        // Archive temporary file can not be created while a directory has its name.
+        File blocker = new File(mDir, NAME + ".gz.tmp");
+        assertTrue(blocker.mkdir());
+
+        log(0, 100);
+        drain();
+        mWriter.setFileSizeLimit(2048);
+        log(100, 101);
+        drain();
+        assertEquals(ALogFileWriter.State.FAILED, mWriter.getState());
+        assertTrue("no archive", !new File(mDir, NAME + ".gz").exists());
+        collectLive();
+        assertEquals("live file kept", 101, mFound.size());
+
+        ALogFileWriter.deleteFile(blocker);
+        mFound.clear();
+        log(200, 201);
+        drain();
+        assertEquals(ALogFileWriter.State.OPEN, mWriter.getState());
+        assertEquals("archived", 101, mFound.size());
+    }
+
+    /**
+     * Per thread rings merge into global order across batches, a busy ring filling a
+     * batch can not push older records of other rings (or the priority lane) behind it.
+     */
+    @Test
+    public void perThreadRingsKeepGlobalOrder() throws Exception {
+        mWriter.setQueueMode(ALogFileWriter.QueueMode.PER_THREAD);
+        ExecutorService[] producers = new ExecutorService[3];
+        for (int idx = 0; idx < producers.length; idx++) {
+            producers[idx] = Executors.newSingleThreadExecutor();
+        }
+        int count = 0;
+        try {
+            // Each round runs on the next producer after the previous round finished.
+            for (int round = 0; round < 9; round++) {
+                final int from = count;
+                final int to = count + 30 + round * 10;
+                final int level = (round % 4 == 3) ? ALog.WARN : ALog.INFO;
+                producers[round % producers.length].submit(() -> log(level, from, to)).get();
+                count = to;
+            }
+        } finally {
+            for (ExecutorService producer : producers) {
+                producer.shutdown();
+            }
+        }
+        drain();
+        mWriter.close();
+        collectLive();
+
+        assertTrue("more than one batch of 256", count > 256);
+        assertEquals(0, mWriter.getDropCount());
+        for (int id = 0; id < count; id++) {
+            assertEquals("record order " + mFound, id, (int) mFound.get(id));
+        }
+        assertEquals(count, mFound.size());
+    }
+
+    /**
+     * Repeated traces fold to a reference only within one file, the first occurrence in
+     * a new file is written in full.
+     */
+    @Test
+    public void traceWrittenInFullAfterRotate() throws IOException {
+        Exception ex = new IllegalStateException("repeat");
+        mWriter.println(ALog.ERROR, "Life", "first", ex);
+        mWriter.println(ALog.ERROR, "Life", "second", ex);
+        drain();
+        String text = readLive();
+        assertTrue(text, text.contains("\tat "));
+        assertTrue(text, text.contains(" (2) " + ex));
+
+        mWriter.rotate();
+        collectArchive();
+        mWriter.println(ALog.ERROR, "Life", "third", ex);
+        drain();
+        text = readLive();
+        assertTrue("frames in new file " + text, text.contains("\tat "));
+        assertTrue(text, !text.contains("(2)"));
+
+        mWriter.clear();
+        mWriter.println(ALog.ERROR, "Life", "fourth", ex);
+        drain();
+        text = readLive();
+        assertTrue("frames after clear " + text, text.contains("\tat "));
+    }
+
+    /**
+     * Drops while closed are not queue pressure, shedding must not start.
+     */
+    @Test
+    public void dropsWhileClosedDoNotShed() throws IOException {
+        mWriter.setShedding(true);
+        mWriter.close();
+        log(0, 500);
+        drain();
+        assertEquals(0, mWriter.getOverflowCount());
+        assertEquals(ALog.VERBOSE, mWriter.getShedLevel());
+
+        mWriter.open(NAME, 1024L * 1024);
+        log(500, 600);
+        drain();
+        assertEquals(ALog.VERBOSE, mWriter.getShedLevel());
+        assertEquals(0, mWriter.getShedCount());
+    }
+
+    private void log(int from, int to) {
+        log(ALog.INFO, from, to);
+    }
+
+    private void log(int level, int from, int to) {
+        for (int id = from; id < to; id++) {
+            mWriter.println(level, "Life", MARK + id);
+        }
+    }
+
+    /**
+     * Run scheduled drains one at a time, collecting any archive written by a size rotation.
+     */
+    private void drain() throws IOException {
+        Runnable task;
+        while ((task = mScheduled.poll()) != null) {
+            task.run();
+            collectArchive();
+        }
+        assertTrue("drained", !mWriter.hasPending());
+    }
+
+    private void collectArchive() throws IOException {
+        File archive = new File(mDir, NAME + ".gz");
+        if (archive.exists()) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(archive))) {
+                collect(in);
+            }
+            ALogFileWriter.deleteFile(archive);
+        }
+    }
+
+    private void collectLive() throws IOException {
+        try (InputStream in = new FileInputStream(new File(mDir, NAME))) {
+            collect(in);
+        }
+    }
+
+    private String readLive() throws IOException {
+        return new String(Files.readAllBytes(new File(mDir, NAME).toPath()), "UTF-8");
+    }
+
+    private void collect(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int pos = line.indexOf(MARK);
+            if (pos != -1) {
+                mFound.add(Integer.parseInt(line.substring(pos + MARK.length()).trim()));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM entry point of {@link ALogLoadTest}, producers print straight into a file writer.
+ * Thresholds are loose enough for a shared CI machine, a failure means the writer
+ * lost lines, fell far behind or dropped under a load it is sized for.
+ *
+ * @author Dennis Lang
+ */
+public class ALogLoadJvmTest {
+    private File mDir;
+    private ALogFileWriter mWriter;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("alogload").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        if (mWriter != null) {
+            mWriter.close();
+        }
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                ALogFileWriter.deleteFile(file);
+            }
+        }
+        ALogFileWriter.deleteFile(mDir);
+    }
+
+    private ALogFileWriter openWriter(int queueCapacity) {
+        mWriter = new ALogFileWriter(queueCapacity);
+        mWriter.setDir(mDir.getAbsolutePath());
+        mWriter.open("load.txt", 1024L * 1024 * 1024);
+        return mWriter;
+    }
+
+    /**
+     * Paced load well below writer capacity must arrive complete, in order, without drops.
+     */
+    @Test
+    public void pacedLoadIsComplete() throws InterruptedException {
+        ALogFileWriter writer = openWriter(8 * 1024);
+        ALogLoadTest test = new ALogLoadTest(writer, ALog.INFO);
+        test.setThreads(4);
+        test.setRate(2000);
+        test.setDuration(2000);
+        test.setWriter(writer);
+        test.setMinRate(4 * 2000 / 2);
+        test.setMaxDropPercent(0);
+
+        ALogLoadTest.Result result = test.run();
+        assertTrue(result.toString(), result.isOk());
+        assertEquals(result.toString(), 0, result.missing);
+        assertEquals(result.toString(), result.sent, result.found);
+    }
+
+    /**
+     * Sustained high rate into per-thread rings, the writer must keep up with bounded drops.
+     */
+    @Test
+    public void sustainedLoadKeepsUp() throws InterruptedException {
+        ALogFileWriter writer = openWriter(1024);
+        writer.setQueueMode(ALogFileWriter.QueueMode.PER_THREAD);
+        writer.setRingCapacity(8 * 1024);
+        ALogLoadTest test = new ALogLoadTest(writer, ALog.INFO);
+        test.setThreads(4);
+        test.setRate(25_000);
+        test.setDuration(2000);
+        test.setWriter(writer);
+        test.setMinRate(4 * 25_000 * 8 / 10);
+        test.setMaxDropPercent(1);
+
+        ALogLoadTest.Result result = test.run();
+        assertTrue(result.toString(), result.isOk());
+    }
+
+    /**
+     * Overload drops most lines, the drops are all accounted for but the run must not pass.
+     */
+    @Test
+    public void overloadFailsDropThreshold() throws InterruptedException {
+        ALogFileWriter writer = openWriter(64);
+        ALogLoadTest test = new ALogLoadTest(writer, ALog.INFO);
+        test.setThreads(4);
+        test.setDuration(1000);
+        test.setWriter(writer);
+
+        ALogLoadTest.Result result = test.run();
+        assertTrue(result.toString(), result.dropped > 0 && result.isComplete());
+        assertFalse(result.toString(), result.isOk());
+    }
+}
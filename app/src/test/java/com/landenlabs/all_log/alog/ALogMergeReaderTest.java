@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link ALogMergeReader#open(File, String)} merges every process's segment of a routed
+ * log file and nothing else.
+ *
+ * @author Dennis Lang
+ */
+public class ALogMergeReaderTest {
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("alogMerge").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                ALogFileWriter.deleteFile(file);
+            }
+        }
+        ALogFileWriter.deleteFile(mDir);
+    }
+
+    @Test
+    public void mergesRoutedSegments() throws IOException {
+        write("network.log",
+                "2026-10-18 10:00:00.100/I Net - main 1",
+                "2026-10-18 10:00:00.300/I Net - main 2");
+        write("com.landenlabs.all_log_remote.200.network.log",
+                "2026-10-18 10:00:00.200/I Net - remote 1");
+        write("com.landenlabs.all_log.100.filelog.txt",
+                "2026-10-18 10:00:00.150/I App - other file");
+
+        ArrayList<String> lines = new ArrayList<>();
+        ArrayList<String> sources = new ArrayList<>();
+        try (ALogMergeReader reader = ALogMergeReader.open(mDir, "network.log")) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.substring(line.indexOf(" - ") + 3));
+                sources.add(reader.getSource());
+            }
+        }
+        assertEquals("[main 1, remote 1, main 2]", lines.toString());
+        assertEquals("[network.log, com.landenlabs.all_log_remote.200, network.log]",
+                sources.toString());
+    }
+
+    private void write(String name, String... lines) throws IOException {
+        Files.write(new File(mDir, name).toPath(), (String.join("\n", lines) + "\n").getBytes("UTF-8"));
+    }
+}
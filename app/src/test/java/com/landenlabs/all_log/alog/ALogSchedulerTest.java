@@ -0,0 +1,180 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ALogScheduler} keeps draining a sink after a failed drain, flushes all batches and
+ * closes sinks only after their in-flight drain.
+ *
+ * @author Dennis Lang
+ */
+public class ALogSchedulerTest {
+
+    /**
+     * Sink with a pending record count, first drain optionally throws.
+     */
+    static class CountSink implements ALogScheduler.Sink {
+        volatile int pending;
+        volatile Throwable failFirst;
+        volatile boolean drainDone;
+        volatile boolean closedAfterDrain;
+
+        @Override
+        public boolean drain(int maxRecords) {
+            Throwable fail = failFirst;
+            if (fail != null) {
+                failFirst = null;
+                if (fail instanceof Error) {
+                    throw (Error) fail;
+                }
+                throw (RuntimeException) fail;
+            }
+            pending = Math.max(0, pending - maxRecords);
+            drainDone = true;
+            return hasPending();
+        }
+
+        @Override
+        public boolean hasPending() {
+            return pending > 0;
+        }
+
+        @Override
+        public void close() {
+            closedAfterDrain = drainDone;
+        }
+    }
+
+    @Test
+    public void errorInDrainKeepsSinkScheduled() {
+        final ArrayDeque<Runnable> scheduled = new ArrayDeque<>();
+        ALogScheduler scheduler = new ALogScheduler(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                scheduled.add(task);
+            }
+        });
+        CountSink sink = new CountSink();
+        sink.pending = 10;
+        sink.failFirst = new OutOfMemoryError("test");
+        ALogScheduler.Task task = scheduler.register(sink);
+
+        task.signal();
+        assertEquals(1, scheduled.size());
+        scheduled.poll().run();
+        assertEquals("rescheduled after error", 1, scheduled.size());
+        scheduled.poll().run();
+        assertEquals(0, sink.pending);
+        assertTrue(scheduled.isEmpty());
+
+        // Later records are still scheduled.
+        sink.pending = 1;
+        task.signal();
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    public void shutdownWaitsForRunningDrain() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountSink sink = new CountSink() {
+            @Override
+            public boolean drain(int maxRecords) {
+                started.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ignore) {
+                }
+                return super.drain(maxRecords);
+            }
+        };
+        try {
+            ALogScheduler scheduler = new ALogScheduler(executor);
+            sink.pending = 1;
+            scheduler.register(sink).signal();
+            started.await();
+            scheduler.shutdown(5000);
+            assertTrue("closed after drain", sink.closedAfterDrain);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void flushWaitsForAllBatches() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountSink sink = new CountSink() {
+            @Override
+            public boolean drain(int maxRecords) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ignore) {
+                }
+                return super.drain(maxRecords);
+            }
+        };
+        try {
+            ALogScheduler scheduler = new ALogScheduler(executor);
+            scheduler.setBatchSize(100);
+            scheduler.register(sink);
+            sink.pending = 1000;
+            assertTrue(scheduler.flush(5000));
+            assertEquals(0, sink.pending);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A sink which can not be scheduled fails the flush at once, not at its timeout.
+     */
+    @Test
+    public void flushFailsWhenRejected() {
+        ALogScheduler scheduler = new ALogScheduler(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                throw new RejectedExecutionException("test");
+            }
+        });
+        CountSink sink = new CountSink();
+        sink.pending = 1;
+        scheduler.register(sink);
+        final long startMilli = System.currentTimeMillis();
+        assertFalse(scheduler.flush(5000));
+        assertTrue(System.currentTimeMillis() - startMilli < 1000);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.Intent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ALogSite} query matching and rule order, rules set by {@link ALogConfig} reloads
+ * and {@link ALogSiteReceiver} intents.
+ * Sites stay registered, each test uses its own file names.
+ *
+ * @author Dennis Lang
+ */
+public class ALogSiteTest {
+
+    private final AppLogRouteTest.ListPrinter mPrinter = new AppLogRouteTest.ListPrinter();
+
+    @After
+    public void tearDown() {
+        ALogConfig.apply(null, ALogConfig.parse(new Properties()));
+        ALogSite.reset();
+        ALog.setMinLevel(ALog.WARN);
+        ALog.v.out(new ALogOut.SysLog());
+    }
+
+    @Test
+    public void globMatching() {
+        assertTrue(ALogSite.glob("Net*.java", 0, "NetClient.java"));
+        assertTrue(ALogSite.glob("Net?lient.java", 0, "NetClient.java"));
+        assertTrue(ALogSite.glob("*Client*", 0, "NetClient.java"));
+        assertTrue(ALogSite.glob("a*b*c", 0, "aXXbYYc"));
+        assertTrue(ALogSite.glob("file:Net*", 5, "NetClient.java"));
+        assertTrue(ALogSite.glob("*", 0, ""));
+        assertFalse(ALogSite.glob("a*b*c", 0, "aXXbYY"));
+        assertFalse(ALogSite.glob("Net*.java", 0, "DbClient.java"));
+        assertFalse(ALogSite.glob("Net", 0, "NetClient.java"));
+        assertFalse(ALogSite.glob("*", 0, null));
+    }
+
+    @Test
+    public void queryTermsMustAllMatch() {
+        ALogSite site = ALogSite.at(ALog.v, "Net", "SiteQuery.java", 130);
+        assertTrue(site.matches(""));
+        assertTrue(site.matches("file:Site*.java line:120-140"));
+        assertTrue(site.matches("line:130 tag:N?t level:V"));
+        assertTrue(site.matches("SiteQuery.java:13*"));
+        assertTrue(site.matches("Net"));
+        assertFalse(site.matches("line:141"));
+        assertFalse(site.matches("line:x"));
+        assertFalse(site.matches("level:D"));
+        assertFalse(site.matches("file:SiteQuery.java tag:Db*"));
+    }
+
+    /**
+     * The latest rule wins, repeating a query moves it last, later sites get the rules.
+     */
+    @Test
+    public void laterRuleWins() {
+        ALogSite line10 = ALogSite.at(ALog.v, "Prec", "SitePrec.java", 10);
+        ALogSite line20 = ALogSite.at(ALog.v, "Prec", "SitePrec.java", 20);
+        assertEquals(2, ALogSite.enable("file:SitePrec.java"));
+        assertEquals(1, ALogSite.disable("file:SitePrec.java line:10"));
+        assertFalse(line10.enabled);
+        assertTrue(line20.enabled);
+
+        ALogSite.enable("file:SitePrec.java");
+        assertTrue(line10.enabled);
+        ALogSite.disable("file:SitePrec.java line:10");
+
+        ALogSite later10 = ALogSite.at(ALog.v, "Prec", "SitePrec.java", 10);
+        ALogSite later30 = ALogSite.at(ALog.v, "Prec", "SitePrec.java", 30);
+        assertFalse(later10.enabled);
+        assertTrue(later30.enabled);
+        assertEquals(Arrays.asList(line10, later10), ALogSite.list("file:SitePrec.java line:10"));
+
+        ALogSite.reset();
+        assertFalse(line20.enabled);
+        assertFalse(ALogSite.at(ALog.v, "Prec", "SitePrec.java", 40).enabled);
+    }
+
+    /**
+     * An enabled site logs below the global minimum level, others below it do not.
+     */
+    @Test
+    public void enabledSiteLogsBelowMinLevel() {
+        ALog.setMinLevel(ALog.WARN);
+        ALog.v.out(mPrinter);
+        ALogSite site = ALogSite.at(ALog.v, "Print", "SitePrint.java", 1);
+        site.msg("hidden");
+        assertFalse(site.isOn());
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.isEmpty());
+
+        ALogSite.enable("file:SitePrint.java");
+        assertTrue(site.isOn());
+        site.msg("shown ", 1);
+        assertEquals(Collections.singletonList(ALog.VERBOSE + " shown 1"), mPrinter.lines);
+    }
+
+    /**
+     * An owner replaces only its own rules, rules of others survive its reloads.
+     */
+    @Test
+    public void ownerReplacesOwnRules() {
+        ALogSite owned = ALogSite.at(ALog.v, "Own", "SiteOwner.java", 5);
+        ALogSite other = ALogSite.at(ALog.v, "Own", "SiteOwner.java", 6);
+        ALogSite.setRules("cfg", Collections.<String>emptyList(),
+                Collections.singletonList("file:SiteOwner.java line:5"));
+        ALogSite.enable("file:SiteOwner.java line:6");
+        assertTrue(owned.enabled);
+        assertTrue(other.enabled);
+
+        ALogSite.setRules("cfg", Collections.<String>emptyList(), Collections.<String>emptyList());
+        assertFalse(owned.enabled);
+        assertTrue("kept rule of other owner", other.enabled);
+
+        ALogSite.setRules("other", Collections.singletonList("file:SiteOwner.java"),
+                Collections.<String>emptyList());
+        assertFalse(other.enabled);
+        ALogSite.setRules("cfg", Collections.singletonList("file:SiteOwner.java"),
+                Collections.singletonList("line:5"));
+        assertTrue(owned.enabled);
+        assertFalse(other.enabled);
+    }
+
+    /**
+     * A config reload replaces the site rules of the previous load, rules set from adb stay.
+     */
+    @Test
+    public void configReloadReplacesSiteRules() {
+        ALogSite first = ALogSite.at(ALog.v, "Cfg", "SiteConfig.java", 2);
+        ALogSite db = ALogSite.at(ALog.v, "SiteDb1", "SiteConfig.java", 9);
+        ALogSite adb = ALogSite.at(ALog.v, "Adb", "SiteConfigAdb.java", 3);
+
+        Properties props = new Properties();
+        props.setProperty("site.enable", "file:SiteConfig.java line:1-5; tag:SiteDb1");
+        ALogConfig.apply(null, ALogConfig.parse(props));
+        assertTrue(first.enabled);
+        assertTrue(db.enabled);
+        assertFalse(adb.enabled);
+        ALogSite.enable("file:SiteConfigAdb.java");
+
+        props = new Properties();
+        props.setProperty("site.disable", "tag:SiteDb*");
+        props.setProperty("site.enable", "file:SiteConfig.java line:9");
+        ALogConfig.apply(null, ALogConfig.parse(props));
+        assertFalse("rule of previous load removed", first.enabled);
+        assertTrue("enable applied after disable", db.enabled);
+        assertTrue("adb rule kept", adb.enabled);
+
+        ALogConfig.apply(null, ALogConfig.parse(new Properties()));
+        assertFalse(db.enabled);
+        assertTrue(adb.enabled);
+
+        // Rules of a reload are newest, they win over an older adb rule.
+        props = new Properties();
+        props.setProperty("site.disable", "tag:Adb");
+        ALogConfig.apply(null, ALogConfig.parse(props));
+        assertFalse(adb.enabled);
+    }
+
+    /**
+     * Receiver applies reset, disable, enable in that order.
+     */
+    @Test
+    public void receiverAppliesExtrasInOrder() {
+        ALogSite site = ALogSite.at(ALog.v, "Rcv", "SiteReceiver.java", 1);
+        ALogSiteReceiver receiver = new ALogSiteReceiver();
+        receiver.onReceive(null, intent(ALogSiteReceiver.EXTRA_ENABLE, "file:SiteReceiver.java"));
+        assertTrue(site.enabled);
+
+        receiver.onReceive(null, intent(ALogSiteReceiver.EXTRA_RESET, true,
+                ALogSiteReceiver.EXTRA_LIST, ""));
+        assertFalse(site.enabled);
+
+        receiver.onReceive(null, intent(ALogSiteReceiver.EXTRA_DISABLE, "tag:Rcv",
+                ALogSiteReceiver.EXTRA_ENABLE, "SiteReceiver.java:1"));
+        assertTrue("enable wins over disable", site.enabled);
+    }
+
+    /**
+     * Intent with extras <b>keyValues</b>, key then value.
+     */
+    private static Intent intent(final Object... keyValues) {
+        final Map<String, Object> extras = new HashMap<>();
+        for (int idx = 0; idx < keyValues.length; idx += 2) {
+            extras.put((String) keyValues[idx], keyValues[idx + 1]);
+        }
+        return new Intent() {
+            @Override
+            public boolean getBooleanExtra(String name, boolean defaultValue) {
+                Object value = extras.get(name);
+                return (value instanceof Boolean) ? (Boolean) value : defaultValue;
+            }
+            @Override
+            public String getStringExtra(String name) {
+                Object value = extras.get(name);
+                return (value instanceof String) ? (String) value : null;
+            }
+        };
+    }
+}
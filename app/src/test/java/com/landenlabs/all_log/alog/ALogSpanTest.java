@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per thread pooling of {@link ALogSpan}, an open span must never be handed out again.
+ *
+ * @author Dennis Lang
+ */
+public class ALogSpanTest {
+
+    @Test
+    public void nestedSpansReuseSlots() {
+        ALogSpan outer = ALogSpan.begin("outer");
+        ALogSpan inner = ALogSpan.begin("inner");
+        inner.close();
+        outer.close();
+        assertSame(outer, ALogSpan.begin("next"));
+        outer.close();
+    }
+
+    @Test
+    public void outOfOrderCloseDoesNotReuseOpenSpan() {
+        ALogSpan outer = ALogSpan.begin("outer");
+        ALogSpan inner = ALogSpan.begin("inner");
+        outer.close();
+        ALogSpan next = ALogSpan.begin("next");
+        assertNotSame(inner, next);
+        assertNotSame(outer, next);
+        next.close();
+        inner.close();
+        // Everything closed, pool is empty again.
+        assertSame(outer, ALogSpan.begin("again"));
+        outer.close();
+    }
+
+    @Test
+    public void closeOnOtherThread() throws InterruptedException {
+        final ALogSpan span = ALogSpan.begin("handoff");
+        ALogSpan open = ALogSpan.begin("open");
+        open.close();
+        assertSame("closed in order, slot free", open, ALogSpan.begin("again"));
+        open.close();
+
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                span.close();
+            }
+        });
+        other.start();
+        other.join();
+
+        // Closed elsewhere, popped by the owner's next begin.
+        ALogSpan next = ALogSpan.begin("next");
+        assertSame(span, next);
+        next.close();
+    }
+
+    /**
+     * A span closed on another thread is traced as one complete slice on its owner's track.
+     */
+    @Test
+    public void tracedOnOwnerTrack() throws Exception {
+        File file = File.createTempFile("alogTrace", ".json");
+        ALogTraceEventWriter tracer = new ALogTraceEventWriter();
+        tracer.open(file);
+        ALogSpan.setTraceWriter(tracer);
+        try {
+            final ALogSpan span = ALogSpan.begin("traced");
+            Thread other = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    span.close();
+                }
+            });
+            other.start();
+            other.join();
+
+            String owner = "\"tid\":" + Thread.currentThread().getId() + ",\"name\":\"traced\"";
+            String json = "";
+            for (int wait = 0; wait < 100 && !json.contains(owner); wait++) {
+                Thread.sleep(20);
+                json = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+            }
+            assertTrue(json, json.contains("{\"ph\":\"X\"") && json.contains(owner));
+            assertTrue(json, json.contains(",\"dur\":"));
+            assertTrue(json, !json.contains("\"ph\":\"B\"") && !json.contains("\"ph\":\"E\""));
+        } finally {
+            ALogSpan.setTraceWriter(null);
+            tracer.close();
+            ALogFileWriter.deleteFile(file);
+        }
+    }
+
+    /**
+     * Spans always begun on one thread and closed on another must not grow the pool.
+     */
+    @Test
+    public void handoffDoesNotGrowPool() throws Exception {
+        ExecutorService closer = Executors.newSingleThreadExecutor();
+        Set<ALogSpan> seen = Collections.newSetFromMap(new IdentityHashMap<ALogSpan, Boolean>());
+        try {
+            for (int loop = 0; loop < 1000; loop++) {
+                // Up to three open at once, all closed elsewhere before the next round.
+                final ALogSpan[] spans = new ALogSpan[1 + loop % 3];
+                for (int idx = 0; idx < spans.length; idx++) {
+                    spans[idx] = ALogSpan.begin("handoff");
+                    seen.add(spans[idx]);
+                }
+                closer.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (ALogSpan span : spans) {
+                            span.close();
+                        }
+                    }
+                }).get();
+            }
+        } finally {
+            closer.shutdown();
+        }
+        assertTrue("pooled spans " + seen.size(), seen.size() <= 3);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link ALogTraceEventWriter} opens its file on the i/o executor and marks dropped events
+ * in the trace.
+ *
+ * @author Dennis Lang
+ */
+public class ALogTraceEventWriterTest {
+
+    private final ArrayDeque<Runnable> mScheduled = new ArrayDeque<>();
+    private ALogScheduler mDefault;
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mDefault = ALogScheduler.getDefault();
+        ALogScheduler.setDefault(new ALogScheduler(new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                mScheduled.add(task);
+            }
+        }));
+        mFile = File.createTempFile("alogTrace", ".json");
+    }
+
+    @After
+    public void tearDown() {
+        ALogScheduler.setDefault(mDefault);
+        ALogFileWriter.deleteFile(mFile);
+    }
+
+    private void runScheduled() {
+        Runnable task;
+        while ((task = mScheduled.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(mFile.toPath()), "UTF-8");
+    }
+
+    @Test
+    public void fullQueueDropsAreMarked() throws IOException {
+        ALogTraceEventWriter tracer = new ALogTraceEventWriter(2);
+        try {
+            tracer.open(mFile);
+            for (int value = 1; value <= 5; value++) {
+                tracer.counter("count", value);
+            }
+            assertEquals(3, tracer.getDropCount());
+            assertEquals("nothing written on caller's thread", "", read());
+
+            runScheduled();
+            String json = read();
+            assertTrue(json, json.startsWith("["));
+            assertTrue(json, json.contains("{\"value\":1}") && json.contains("{\"value\":2}"));
+            assertTrue(json, !json.contains("{\"value\":3}"));
+            assertTrue(json, json.contains("\"W dropped 3 events, queue full\""));
+
+            // Reported once.
+            tracer.counter("count", 6);
+            runScheduled();
+            json = read();
+            assertEquals(json, json.indexOf("dropped"), json.lastIndexOf("dropped"));
+        } finally {
+            tracer.close();
+        }
+    }
+
+    /**
+     * Events added while opening go to the new file, a close cancels a pending open.
+     */
+    @Test
+    public void openIsDoneByScheduler() throws IOException {
+        ALogTraceEventWriter tracer = new ALogTraceEventWriter();
+        try {
+            tracer.open(mFile);
+            tracer.counter("count", 1);
+            assertFalse("waits for open", tracer.hasPending());
+            runScheduled();
+            assertTrue(read(), read().contains("{\"value\":1}"));
+
+            ALogFileWriter.deleteFile(mFile);
+            tracer.open(mFile);
+            tracer.close();
+            runScheduled();
+            assertFalse(mFile.exists());
+        } finally {
+            tracer.close();
+        }
+    }
+}
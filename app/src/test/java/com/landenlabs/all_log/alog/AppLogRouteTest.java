@@ -0,0 +1,238 @@
+/*
+ *  Copyright (c) 2026 Dennis Lang (LanDen Labs)
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ *  associated documentation files (the "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the
+ *  following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all copies or substantial
+ *  portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ *  LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+ *  NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE
+ *  SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ *  @author Dennis Lang  (Jan-2017)
+ *  @see https://LanDenLabs.com
+ *
+ */
+
+package com.landenlabs.all_log.alog;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link AppLog} channel routing and {@link ALogConfig} channel settings, a filtered
+ * channel must not print anywhere.
+ *
+ * @author Dennis Lang
+ */
+public class AppLogRouteTest {
+
+    /**
+     * Collects printed lines instead of writing them.
+     */
+    static final class ListPrinter implements ALogOut.LogPrinter {
+        final List<String> lines = new ArrayList<>();
+        int acceptLevel = ALog.VERBOSE;
+
+        @Override
+        public boolean accepts(int priority) {
+            return priority >= acceptLevel;
+        }
+        @Override
+        public synchronized void println(int priority, String tag, String msg) {
+            lines.add(priority + " " + msg);
+        }
+        @Override
+        public void open(Context context) {
+        }
+        @Override
+        public int maxTagLen() {
+            return MAX_TAG_LEN;
+        }
+    }
+
+    private final ListPrinter mPrinter = new ListPrinter();
+
+    @Before
+    public void setUp() {
+        ALog.setMinLevel(ALog.VERBOSE);
+    }
+
+    @After
+    public void tearDown() {
+        ALogConfig.apply(null, ALogConfig.parse(new Properties()));
+        AppLog.LOG_NETWORK.route(null, ALog.VERBOSE);
+        ALog.setMinLevel(ALog.WARN);
+        ALog.d.out(new ALogOut.SysLog());
+        ALog.w.out(new ALogOut.SysLog());
+    }
+
+    @Test
+    public void noneNeverPrints() {
+        ALog.none.out(mPrinter);
+        try {
+            assertFalse(ALog.isLoggable(ALog.NOLOGGING));
+            assertFalse(ALog.none.isEnabled());
+            ALog.none.tagMsg("test", "hidden");
+            ALog.none.tagLazy("test", () -> "hidden");
+        } finally {
+            ALog.none.out(new ALogOut.SysLog());
+        }
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.isEmpty());
+    }
+
+    @Test
+    public void channelBelowMinLevelWritesNothing() {
+        AppLog.LOG_NETWORK.route(mPrinter, ALog.WARN);
+        AppLog.LOG_NETWORK.v().tagMsg("test", "verbose");
+        AppLog.LOG_NETWORK.d().tagMsg("test", "debug");
+        AppLog.LOG_NETWORK.i().tagMsg("test", "info");
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.isEmpty());
+
+        AppLog.LOG_NETWORK.w().tagMsg("test", "warn");
+        assertEquals(1, mPrinter.lines.size());
+        assertEquals(ALog.WARN + " warn", mPrinter.lines.get(0));
+    }
+
+    @Test
+    public void globalMinLevelAppliesToChannel() {
+        ALog.setMinLevel(ALog.NOLOGGING);
+        AppLog.LOG_NETWORK.route(mPrinter, ALog.VERBOSE);
+        AppLog.LOG_NETWORK.e().tagMsg("test", "error");
+        AppLog.LOG_NETWORK.a().tagMsg("test", "assert");
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.isEmpty());
+    }
+
+    /**
+     * A channel call is decided by the state the channel read, a level change in between
+     * is seen by the next call.
+     */
+    @Test
+    public void callUsesStateReadByChannel() {
+        AppLog.LOG_NETWORK.route(mPrinter, ALog.VERBOSE);
+        ALog log = AppLog.LOG_NETWORK.d();
+        ALog.setMinLevel(ALog.WARN);
+        log.tagMsg("test", "admitted");
+        AppLog.LOG_NETWORK.d().tagMsg("test", "filtered");
+        assertEquals(mPrinter.lines.toString(), 1, mPrinter.lines.size());
+        assertEquals(ALog.DEBUG + " admitted", mPrinter.lines.get(0));
+    }
+
+    /**
+     * A printer which rejects a level on entry (ex: shedding load) gets nothing, and the
+     * call's message is never built.
+     */
+    @Test
+    public void rejectedLevelIsNotFormatted() {
+        mPrinter.acceptLevel = ALog.WARN;
+        final int[] built = new int[1];
+        AppLog.LOG_NETWORK.route(mPrinter, ALog.VERBOSE);
+        AppLog.LOG_NETWORK.d().tagLazy("test", () -> "debug" + built[0]++);
+        AppLog.LOG_NETWORK.w().tagLazy("test", () -> "warn" + built[0]++);
+        assertEquals(1, built[0]);
+        assertEquals(mPrinter.lines.toString(), 1, mPrinter.lines.size());
+        assertEquals(ALog.WARN + " warn0", mPrinter.lines.get(0));
+    }
+
+    @Test
+    public void configSinkNoneWritesNothing() {
+        Properties props = new Properties();
+        props.setProperty("channel.LOG_FRAG.sink", ALogConfig.SINK_NONE);
+        ALogConfig config = ALogConfig.parse(props);
+        ALogConfig.apply(null, config);
+        assertSame(config, ALogConfig.getCurrent());
+
+        ALog.w.out(mPrinter);
+        AppLog.LOG_FRAG.w().tagMsg("test", "warn");
+        AppLog.LOG_FRAG.a().tagMsg("test", "assert");
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.isEmpty());
+        AppLog.LOG.w().tagMsg("test", "other channel");
+        assertEquals(1, mPrinter.lines.size());
+    }
+
+    /**
+     * A reload which drops a file sink releases its writer, renaming sinks must not leak
+     * open files and scheduler tasks.
+     */
+    @Test
+    public void configReloadReleasesDroppedWriter() throws IOException {
+        final File dir = Files.createTempDirectory("alogConfig").toFile();
+        Context context = new ContextWrapper(null) {
+            @Override
+            public File getFilesDir() {
+                return dir;
+            }
+        };
+        try {
+            Properties props = new Properties();
+            props.setProperty("channel.LOG_FRAG.sink", "a.log");
+            ALogConfig.apply(context, ALogConfig.parse(props));
+            ALogFileWriter first = (ALogFileWriter) AppLog.LOG_FRAG.getRoute();
+
+            props.setProperty("channel.LOG_FRAG.sink", "b.log");
+            ALogConfig.apply(context, ALogConfig.parse(props));
+            ALogFileWriter second = (ALogFileWriter) AppLog.LOG_FRAG.getRoute();
+            assertNotSame(first, second);
+            assertEquals(ALogFileWriter.State.CLOSED, first.getState());
+            assertTrue(second.getState() != ALogFileWriter.State.CLOSED);
+
+            // Reapplying keeps the writer, dropping the sink releases it.
+            ALogConfig.apply(context, ALogConfig.parse(props));
+            assertSame(second, AppLog.LOG_FRAG.getRoute());
+            ALogConfig.apply(context, ALogConfig.parse(new Properties()));
+            assertEquals(ALogFileWriter.State.CLOSED, second.getState());
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    private static void deleteTree(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteTree(child);
+            }
+        }
+        ALogFileWriter.deleteFile(file);
+    }
+
+    @Test
+    public void configRateLimitsChannel() {
+        Properties props = new Properties();
+        props.setProperty("minLevel", "DEBUG");
+        props.setProperty("channel.LOG_FRAG.rate", "1");
+        ALogConfig.apply(null, ALogConfig.parse(props));
+        assertEquals(ALog.DEBUG, ALog.getMinLevel());
+
+        ALog.d.out(mPrinter);
+        for (int idx = 0; idx < 100; idx++) {
+            AppLog.LOG_FRAG.d().tagMsg("test", "msg ", idx);
+        }
+        // One second burst plus one, not all of them.
+        assertTrue(mPrinter.lines.toString(), mPrinter.lines.size() >= 1 && mPrinter.lines.size() <= 2);
+    }
+}